@@ -0,0 +1,286 @@
+package org.lunapark.dev.sudokulight;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+/*
+ * Game field drawn on a single Canvas instead of 81 buttons.
+ */
+public class BoardView extends View {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final String[] DIGITS = {"", "1", "2", "3", "4", "5", "6", "7", "8", "9"};
+
+    public interface OnCellClickListener {
+        void onCellClick(int row, int column);
+    }
+
+    private final Paint paintField, paintGiven, paintSelected, paintThin, paintThick;
+    private final Paint paintText, paintEntry, paintHighlight, paintConflict, paintMark;
+
+    private OnCellClickListener listener;
+    private int[][] values;
+    private boolean[][] givens;
+    private CandidateGrid tracker;
+    private boolean pencilMarks;
+    private int highlightValue;
+    private int selectedRow = -1, selectedColumn = -1;
+    private int touchedRow = -1, touchedColumn = -1; // Cell of the tap being clicked
+
+    private float cellSize;
+    private float textOffset; // Baseline offset from the cell center
+    private float markOffset;
+
+    public BoardView(Context context) {
+        this(context, null);
+    }
+
+    public BoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        paintField = new Paint();
+        paintField.setColor(getResources().getColor(R.color.field));
+
+        paintGiven = new Paint();
+        paintGiven.setColor(getResources().getColor(R.color.given_bg));
+
+        paintSelected = new Paint();
+        paintSelected.setColor(getResources().getColor(R.color.highlight_bg));
+
+        paintThin = new Paint();
+        paintThin.setColor(0x40000000);
+        paintThin.setStrokeWidth(1);
+
+        paintThick = new Paint();
+        paintThick.setColor(Color.BLACK);
+        paintThick.setStrokeWidth(5);
+
+        paintText = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintText.setColor(Color.BLACK);
+        paintText.setTextAlign(Paint.Align.CENTER);
+        paintText.setTypeface(Typeface.create(Typeface.MONOSPACE, Typeface.BOLD));
+
+        paintEntry = new Paint(paintText);
+        paintEntry.setColor(getResources().getColor(R.color.entry_text));
+
+        paintHighlight = new Paint(paintText);
+        paintHighlight.setColor(getResources().getColor(R.color.highlight_text));
+
+        paintConflict = new Paint(paintText);
+        paintConflict.setColor(getResources().getColor(R.color.conflict_text));
+
+        paintMark = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paintMark.setColor(0x80000000);
+        paintMark.setTextAlign(Paint.Align.CENTER);
+    }
+
+    public void setOnCellClickListener(OnCellClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param values  - user grid, values[row][column], 0 is empty
+     * @param givens  - cells filled by the generator, shaded and drawn apart from user values
+     * @param tracker - conflicts and candidates of the same grid
+     */
+    public void setGrid(int[][] values, boolean[][] givens, CandidateGrid tracker) {
+        this.values = values;
+        this.givens = givens;
+        this.tracker = tracker;
+        invalidate();
+    }
+
+    /**
+     * Cells with this value are drawn in highlight color
+     */
+    public void setHighlightValue(int value) {
+        if (value == highlightValue) return;
+        highlightValue = value;
+        invalidate();
+    }
+
+    /**
+     * Draw candidates of empty cells
+     */
+    public void setPencilMarks(boolean pencilMarks) {
+        if (pencilMarks == this.pencilMarks) return;
+        this.pencilMarks = pencilMarks;
+        invalidate();
+    }
+
+    public boolean isPencilMarks() {
+        return pencilMarks;
+    }
+
+    public void setSelected(int row, int column) {
+        invalidateCell(selectedRow, selectedColumn);
+        selectedRow = row;
+        selectedColumn = column;
+        invalidateCell(row, column);
+    }
+
+    /**
+     * Redraw single cell only
+     */
+    public void invalidateCell(int row, int column) {
+        if (row < 0 || column < 0) return;
+        int left = (int) (column * cellSize);
+        int top = (int) (row * cellSize);
+        int size = (int) Math.ceil(cellSize);
+        invalidate(left, top, left + size + 1, top + size + 1);
+    }
+
+    /**
+     * Redraw row, column and box of the cell
+     */
+    public void invalidatePeers(int row, int column) {
+        int size = (int) Math.ceil(cellSize * SIZE) + 1;
+        int cell = (int) Math.ceil(cellSize);
+        int top = (int) (row * cellSize);
+        int left = (int) (column * cellSize);
+        invalidate(0, top, size, top + cell + 1);
+        invalidate(left, 0, left + cell + 1, size);
+        int boxTop = (int) ((row / 3) * 3 * cellSize);
+        int boxLeft = (int) ((column / 3) * 3 * cellSize);
+        invalidate(boxLeft, boxTop, boxLeft + 3 * cell + 1, boxTop + 3 * cell + 1);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = MeasureSpec.getSize(heightMeasureSpec);
+        // Square field, fit into the smaller known side
+        int size;
+        if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+            size = height;
+        } else if (MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+            size = width;
+        } else {
+            size = Math.min(width, height);
+        }
+        setMeasuredDimension(size, size);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        cellSize = Math.min(w, h) / (float) SIZE;
+        float textSize = cellSize * 0.6f;
+        paintText.setTextSize(textSize);
+        paintEntry.setTextSize(textSize);
+        paintHighlight.setTextSize(textSize);
+        paintConflict.setTextSize(textSize);
+        Paint.FontMetrics metrics = paintText.getFontMetrics();
+        textOffset = -(metrics.ascent + metrics.descent) / 2;
+        paintMark.setTextSize(cellSize * 0.25f);
+        metrics = paintMark.getFontMetrics();
+        markOffset = -(metrics.ascent + metrics.descent) / 2;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float size = cellSize * SIZE;
+        canvas.drawRect(0, 0, size, size, paintField);
+
+        if (givens != null) {
+            for (int i = 0; i < SIZE; i++) {
+                for (int j = 0; j < SIZE; j++) {
+                    if (!givens[i][j]) continue;
+                    float left = j * cellSize, top = i * cellSize;
+                    canvas.drawRect(left, top, left + cellSize, top + cellSize, paintGiven);
+                }
+            }
+        }
+
+        if (selectedRow >= 0) {
+            float left = selectedColumn * cellSize;
+            float top = selectedRow * cellSize;
+            canvas.drawRect(left, top, left + cellSize, top + cellSize, paintSelected);
+        }
+
+        if (values != null) {
+            for (int i = 0; i < SIZE; i++) {
+                float y = (i + 0.5f) * cellSize + textOffset;
+                for (int j = 0; j < SIZE; j++) {
+                    int value = values[i][j];
+                    if (value == 0) {
+                        if (pencilMarks && tracker != null) drawMarks(canvas, i, j);
+                        continue;
+                    }
+                    Paint paint;
+                    if (tracker != null && tracker.isConflict(i, j)) {
+                        paint = paintConflict;
+                    } else if (value == highlightValue) {
+                        paint = paintHighlight;
+                    } else if (givens != null && !givens[i][j]) {
+                        paint = paintEntry;
+                    } else {
+                        paint = paintText;
+                    }
+                    canvas.drawText(DIGITS[value], (j + 0.5f) * cellSize, y, paint);
+                }
+            }
+        }
+
+        // Grid
+        for (int i = 0; i <= SIZE; i++) {
+            float p = i * cellSize;
+            Paint paint = i % 3 == 0 ? paintThick : paintThin;
+            canvas.drawLine(p, 0, p, size, paint);
+            canvas.drawLine(0, p, size, p, paint);
+        }
+    }
+
+    /**
+     * Candidate d sits at the place of d on a phone keypad inside the cell
+     */
+    private void drawMarks(Canvas canvas, int row, int column) {
+        int c = tracker.getCandidates(row, column);
+        float mark = cellSize / 3;
+        while (c != 0) {
+            int d = Integer.numberOfTrailingZeros(c);
+            c &= c - 1;
+            float x = column * cellSize + (d % 3 + 0.5f) * mark;
+            float y = row * cellSize + (d / 3 + 0.5f) * mark + markOffset;
+            canvas.drawText(DIGITS[d + 1], x, y, paintMark);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                return true;
+            case MotionEvent.ACTION_UP:
+                int row = (int) (event.getY() / cellSize);
+                int column = (int) (event.getX() / cellSize);
+                if (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+                    touchedRow = row;
+                    touchedColumn = column;
+                    performClick();
+                }
+                return true;
+        }
+        return super.onTouchEvent(event);
+    }
+
+    /**
+     * Click of the tapped cell, a click from accessibility services acts on the selected cell
+     */
+    @Override
+    public boolean performClick() {
+        boolean handled = super.performClick();
+        int row = touchedRow >= 0 ? touchedRow : selectedRow;
+        int column = touchedRow >= 0 ? touchedColumn : selectedColumn;
+        touchedRow = touchedColumn = -1;
+        if (row < 0 || column < 0 || listener == null) return handled;
+        listener.onCellClick(row, column);
+        return true;
+    }
+}
@@ -5,69 +5,70 @@ import android.app.AlertDialog;
 import android.content.DialogInterface;
 import android.content.SharedPreferences;
 import android.graphics.Color;
-import android.graphics.Paint;
-import android.graphics.Point;
-import android.graphics.drawable.Drawable;
-import android.graphics.drawable.LayerDrawable;
-import android.graphics.drawable.ShapeDrawable;
-import android.graphics.drawable.shapes.RectShape;
 import android.os.Bundle;
 import android.util.DisplayMetrics;
-import android.view.Display;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.widget.Button;
 import android.widget.GridLayout;
 import android.widget.LinearLayout;
 import android.widget.SeekBar;
-import android.widget.TableLayout;
-import android.widget.TableRow;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import static android.view.ViewGroup.LayoutParams;
 
-public class MainActivity extends Activity implements Button.OnClickListener {
+public class MainActivity extends Activity implements Button.OnClickListener, BoardView.OnCellClickListener {
 
     private final int SIZE = 9; // Field size
     private final int LEVEL_OFFSET = 6; // Offset level value
     private final int LEVELS = SIZE * SIZE - 1; // Maximum reachable level
-    private String CELL_ID = "Cell", BTN_ID = "Button", PREF_LVL = "Level", PREF_DATA = "Game data", PREF_POS = "Pos";
+    private final String TAG = "SudokuMetrics";
+    private String PREF_LVL = "Level", PREF_DATA = "Game data", PREF_POS = "Pos", PREF_MARKS = "Pencil marks";
     private SharedPreferences preferences;
-    private TableLayout tableLayout; // Game field
+    private BoardView board; // Game field
     private GridLayout controlsLayout; // Controls layout
     private TextView tvLevel, tvRank, tvOptions;
-    private Button[][] cells; // Cells in game field
     private Button[] controls;
 
-    private AlertDialog.Builder messageBox;
-    private AlertDialog.Builder difficultyDialog;
+    private AlertDialog.Builder messageBox; // Created on first use
 
-    private Sudoku sudoku;
+    private PuzzleQueue puzzleQueue; // Ready puzzles for current and next level
     private int[][] sudokuSolution; // User grid
+    private boolean[][] givens; // Cells filled by generator
+    private SaveManager saveManager;
+    private MoveJournal journal; // Undo and redo of user moves
+    private CandidateGrid tracker; // Counters and candidates of the user grid
+    private CandidateGrid.Hint hint;
 
     private String[] ranks;
 
     private int maxLevel = 7, currentLevel;
-    private int moves, ranksLength;
     private int currentValue;
-    private Animation animationScale, animationRotate;
+    private Animation animationScale, animationRotate; // Loaded after the first frame
     private int cellWidth;
+    private boolean loading; // New puzzle is on its way, the board takes no moves
+    private boolean destroyed; // isFinishing() is false when destroyed for a configuration change
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        StartupTrace.begin("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        SudokuMetrics.setEnabled(BuildConfig.DEBUG); // Debug builds log engine metrics
 
         preferences = getPreferences(MODE_PRIVATE);
         maxLevel = preferences.getInt(PREF_LVL, maxLevel);
         currentLevel = maxLevel;
 
-        tableLayout = (TableLayout) findViewById(R.id.tlayout);
+        board = (BoardView) findViewById(R.id.board);
         controlsLayout = (GridLayout) findViewById(R.id.controlsLayout);
         tvLevel = (TextView) findViewById(R.id.tvLevel);
         tvRank = (TextView) findViewById(R.id.tvRank);
@@ -75,37 +76,31 @@ public class MainActivity extends Activity implements Button.OnClickListener {
 
         tvOptions.setOnClickListener(this);
 
-        messageBox = new AlertDialog.Builder(this);
-        messageBox.setPositiveButton(android.R.string.yes,
-                new DialogInterface.OnClickListener() {
-                    @Override
-                    public void onClick(DialogInterface dialog,
-                                        int which) {
-                    }
-
-                });
-
-        difficultyDialog = new AlertDialog.Builder(this);
-
-        animationScale = AnimationUtils.loadAnimation(this, R.anim.anim_scale);
-        animationRotate = AnimationUtils.loadAnimation(this, R.anim.anim_rotate);
-
-        cells = new Button[SIZE][SIZE];
         controls = new Button[SIZE];
-        sudoku = new Sudoku(SIZE);
+        puzzleQueue = new PuzzleQueue(2, true); // Started after the first frame
+        tracker = new CandidateGrid();
+        hint = new CandidateGrid.Hint();
+        givens = new boolean[SIZE][SIZE];
+        journal = new MoveJournal();
+        saveManager = new SaveManager(this);
 
-        ranksLength = getResources().getStringArray(R.array.ranks).length;
-        ranks = new String[ranksLength];
-        System.arraycopy(getResources().getStringArray(R.array.ranks), 0, ranks, 0, ranksLength);
+        ranks = getResources().getStringArray(R.array.ranks);
 
-        loadSudoku();
+        // Only what the first frame shows: saved board, level and controls
+        StartupTrace.begin("loadSudoku");
+        boolean saved = loadSudoku();
+        StartupTrace.end();
 
+        StartupTrace.begin("createViews");
         createTable();
         createControls();
-        refreshTable();
-        highlights();
-
+        board.setPencilMarks(preferences.getBoolean(PREF_MARKS, false));
+        showSudoku();
+        StartupTrace.end();
 
+        if (!saved) createSudoku(); // First game, empty board until it is generated
+        deferUntilFirstFrame();
+        StartupTrace.end();
     }
 
     @Override
@@ -115,6 +110,14 @@ public class MainActivity extends Activity implements Button.OnClickListener {
         return true;
     }
 
+    @Override
+    public boolean onPrepareOptionsMenu(Menu menu) {
+        menu.findItem(R.id.action_pencil_marks).setChecked(board.isPencilMarks());
+        menu.findItem(R.id.action_undo).setEnabled(!loading && journal.canUndo());
+        menu.findItem(R.id.action_redo).setEnabled(!loading && journal.canRedo());
+        return super.onPrepareOptionsMenu(menu);
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
 
@@ -124,122 +127,155 @@ public class MainActivity extends Activity implements Button.OnClickListener {
                 break;
             case R.id.action_new_game:
                 createSudoku();
-                refreshTable();
+                break;
+            case R.id.action_undo:
+                int move = journal.undo();
+                if (move >= 0) replay(move, MoveJournal.oldValue(move));
+                break;
+            case R.id.action_redo:
+                move = journal.redo();
+                if (move >= 0) replay(move, MoveJournal.newValue(move));
+                break;
+            case R.id.action_hint:
+                showHint();
+                break;
+            case R.id.action_pencil_marks:
+                boolean marks = !board.isPencilMarks();
+                board.setPencilMarks(marks);
+                preferences.edit().putBoolean(PREF_MARKS, marks).apply();
                 break;
         }
 
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    protected void onPause() {
+        saveManager.flush();
+        if (SudokuMetrics.isEnabled()) Log.i(TAG, SudokuMetrics.snapshot().toString());
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        destroyed = true;
+        puzzleQueue.stop();
+        saveManager.flush(); // Written by the shared thread, the next load() waits for it
+        super.onDestroy();
+    }
+
     /**
-     * Generate sudoku grid
+     * Ask for a puzzle of the current level, the board shows it when it is ready.
+     * Only a level without pre-generated puzzles waits for the generator.
      */
     private void createSudoku() {
-        moves = currentLevel;
+        loading = true;
+        puzzleQueue.take(currentLevel, new PuzzleQueue.Listener() {
+            @Override
+            public void onPuzzle(final int level, final int[][] puzzle) {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        // Level may be changed while waiting, its own request comes later
+                        if (!destroyed && level == currentLevel) setSudoku(puzzle);
+                    }
+                });
+            }
+        });
+    }
+
+    private void setSudoku(int[][] puzzle) {
         // Fill user data
-        sudokuSolution = sudoku.generateSudoku(currentLevel);
+        loading = false;
+        sudokuSolution = puzzle;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                givens[i][j] = sudokuSolution[i][j] != 0;
+            }
+        }
+        tracker.load(sudokuSolution);
+        journal.clear();
         saveSudoku();
+        refreshTable();
     }
 
     /**
-     * Create game field
+     * Set up game field, cell size is used by controls
      */
     private void createTable() {
-
-        Display display = getWindowManager().getDefaultDisplay();
-        // Screen size
-        Point point = new Point();
-        display.getSize(point);
-        // Screen density
-        DisplayMetrics displayMetrics = new DisplayMetrics();
-        display.getMetrics(displayMetrics);
+        // Screen size and density, already known to the resources
+        DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
 
         float dpi = displayMetrics.density;
         float marginX = (getResources().getDimension(R.dimen.activity_horizontal_margin)) * dpi;
-        float width;
-        if (point.x < point.y) {
-            width = point.x - marginX;
-        } else {
-            width = point.y - marginX;
-        }
+        float width = Math.min(displayMetrics.widthPixels, displayMetrics.heightPixels) - marginX;
         cellWidth = (int) (width / 9);
 
-        for (int i = 0; i < SIZE; i++) {
-            // Add row
-            TableRow tableRow = new TableRow(this);
-            tableRow.setGravity(Gravity.CENTER_HORIZONTAL);
-            for (int j = 0; j < SIZE; j++) {
-                Button button = new Button(this);
-                int value = sudokuSolution[i][j];
-
-                if (value != 0) {
-                    button.setText(String.valueOf(value));
-                } else {
-                    button.setText(" ");
-                }
-                button.setTag(CELL_ID + "," + i + j);
-                button.setGravity(1);
-                button.setOnClickListener(this);
-                button.setWidth(cellWidth);
-                button.setHeight(cellWidth);
-                button.setGravity(Gravity.CENTER);
-                cells[i][j] = button;
-                tableRow.addView(button);
-            }
-            tableLayout.addView(tableRow);
-        }
-
-        // Add grid
-        ShapeDrawable sdBg = new ShapeDrawable(new RectShape());
-        sdBg.getPaint().setColor(getResources().getColor(R.color.field));
-
-        ShapeDrawable sdGrid1 = new ShapeDrawable(new RectShape());
-        sdGrid1.getPaint().setColor(Color.BLACK);
-        sdGrid1.getPaint().setStyle(Paint.Style.STROKE);
-        sdGrid1.getPaint().setStrokeWidth(5);
-
-        ShapeDrawable sdGrid2 = new ShapeDrawable(new RectShape());
-        sdGrid2.getPaint().setColor(Color.BLACK);
-        sdGrid2.getPaint().setStyle(Paint.Style.STROKE);
-        sdGrid2.getPaint().setStrokeWidth(5);
-
-        Drawable[] drawables = {sdBg, sdGrid1, sdGrid2};
-        LayerDrawable layerDrawable = new LayerDrawable(drawables);
-        layerDrawable.setLayerInset(1, 0, cellWidth * 3, 0, cellWidth * 3);
-        layerDrawable.setLayerInset(2, cellWidth * 3, 0, cellWidth * 3, 0);
-
-        tableLayout.setBackgroundDrawable(layerDrawable);
+        board.setOnCellClickListener(this);
     }
 
+    /**
+     * New puzzle on the field, animated once startup is over
+     */
     private void refreshTable() {
+        showSudoku();
+        if (animationRotate != null) board.startAnimation(animationRotate);
+    }
+
+    private void showSudoku() {
         int level = currentLevel - LEVEL_OFFSET;
         tvLevel.setText(getString(R.string.title_level) + " " + (level));
         // TODO Check for range
         tvRank.setText(ranks[level / 10]);
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                int value = sudokuSolution[i][j];
-                if (value != 0) {
-                    cells[i][j].setText(String.valueOf(value));
-                    cells[i][j].startAnimation(animationRotate);
-                } else {
-                    cells[i][j].setText(" ");
-                }
-                cells[i][j].setBackgroundResource(R.drawable.button_selector);
-            }
-        }
+        board.setSelected(-1, -1);
+        board.setGrid(sudokuSolution, givens, tracker);
         highlights();
     }
 
+    /**
+     * Work the first frame does not need runs after it is drawn
+     */
+    private void deferUntilFirstFrame() {
+        board.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver observer = board.getViewTreeObserver();
+                if (observer.isAlive()) observer.removeOnPreDrawListener(this);
+                // Posted before the draw, runs after it
+                board.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!destroyed) onFirstFrame();
+                    }
+                });
+                return true;
+            }
+        });
+    }
+
+    private void onFirstFrame() {
+        StartupTrace.begin("MainActivity.onFirstFrame");
+        puzzleQueue.start(currentLevel); // Generator thread no longer competes with the first frame
+        animationScale = AnimationUtils.loadAnimation(this, R.anim.anim_scale);
+        animationRotate = AnimationUtils.loadAnimation(this, R.anim.anim_rotate);
+        StartupTrace.end();
+    }
+
     private void createControls() {
         LinearLayout.LayoutParams layoutParams = new LinearLayout.LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
         layoutParams.weight = 1;
 
         for (int i = 0; i < SIZE; i++) {
             Button button = new Button(this);
-            button.setTag(BTN_ID + "," + i);
-            button.setText(String.valueOf(i + 1));
-            button.setOnClickListener(this);
+            final int value = i + 1;
+            button.setText(String.valueOf(value));
+            // Listener knows its value, no lookup on tap
+            button.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    selectValue(value);
+                }
+            });
             button.setHeight(cellWidth);
             button.setWidth(cellWidth);
 
@@ -251,13 +287,15 @@ public class MainActivity extends Activity implements Button.OnClickListener {
         controls[currentValue - 1].setBackgroundResource(R.drawable.button_checked);
     }
 
+    /**
+     * Victory starts a new puzzle, a failed one stays to be fixed
+     */
     private void showResult(boolean result) {
-        createSudoku();
-        refreshTable();
         int iconId;
         String message;
         if (result) {
             // Victory
+            createSudoku();
             iconId = android.R.drawable.btn_star_big_on;
             message = getString(R.string.title_victory);
         } else {
@@ -266,80 +304,130 @@ public class MainActivity extends Activity implements Button.OnClickListener {
             message = getString(R.string.title_fail);
         }
 
+        if (messageBox == null) {
+            messageBox = new AlertDialog.Builder(this);
+            messageBox.setPositiveButton(android.R.string.yes,
+                    new DialogInterface.OnClickListener() {
+                        @Override
+                        public void onClick(DialogInterface dialog,
+                                            int which) {
+                        }
+
+                    });
+        }
         messageBox.setIcon(iconId).setTitle(message).show();
     }
 
     @Override
     public void onClick(View v) {
-        Object tag1 = v.getTag();
+        this.openOptionsMenu();
+    }
 
-        if (tag1 == null) {
-            this.openOptionsMenu();
-        } else {
-            String[] ID = tag1.toString().split(",");
-            // Highlight cell
-            //if (ID[0].equals(CELL_ID)) {
-            for (int i = 0; i < SIZE; i++) {
-                for (int j = 0; j < SIZE; j++) {
-                    Button button = cells[i][j];
-                    if (button.getTag().equals(tag1) && sudokuSolution[i][j] == 0) {
-                        button.setText(String.valueOf(currentValue));
-                        button.setBackgroundResource(R.drawable.button_checked);
-                        sudokuSolution[i][j] = currentValue;
-                        moves--;
-                        saveSudoku();
-                    } else {
-                        button.setBackgroundResource(R.drawable.button_selector);
-                    }
-                }
-            }
+    /**
+     * Switch current value, only old and new controls are touched
+     */
+    private void selectValue(int value) {
+        Button button = controls[currentValue - 1];
+        button.setBackgroundResource(R.drawable.button);
+        button.setTextColor(Color.BLACK);
+
+        currentValue = value;
+        button = controls[currentValue - 1];
+        button.setBackgroundResource(R.drawable.button_checked);
+        button.setTextColor(getResources().getColor(R.color.highlight_text));
+        if (animationScale != null) button.startAnimation(animationScale);
+
+        board.setHighlightValue(currentValue);
+        saveSudoku();
+    }
 
+    /**
+     * Put current value into the cell, the same value clears it, givens are fixed
+     */
+    @Override
+    public void onCellClick(int row, int column) {
+        if (loading || givens[row][column]) {
+            board.setSelected(-1, -1);
+            return;
+        }
+        board.setSelected(row, column);
 
-            if (moves == 0) {
-                if (sudoku.checkSolution(sudokuSolution)) {
-                    if (currentLevel < LEVELS) currentLevel++; // Level up
-                    if (currentLevel > maxLevel) {
-                        maxLevel = currentLevel;
-                        preferences.edit().putInt(PREF_LVL, maxLevel).apply();
-                    }
-                    showResult(true);
-                } else {
-                    showResult(false);
-                }
-            }
+        int old = sudokuSolution[row][column];
+        int value = old == currentValue ? 0 : currentValue;
+        journal.record(row * SIZE + column, old, value);
+        put(row, column, value);
+    }
 
-            // Highlight controls
-            for (int i = 0; i < SIZE; i++) {
-                Button button = controls[i];
-                if (button.getTag().equals(tag1)) {
-                    currentValue = i + 1;
-                    button.setBackgroundResource(R.drawable.button_checked);
-                } else {
-                    button.setBackgroundResource(R.drawable.button);
+    /**
+     * Apply journal move with the value
+     */
+    private void replay(int move, int value) {
+        int cell = MoveJournal.cell(move);
+        board.setSelected(cell / SIZE, cell % SIZE);
+        put(cell / SIZE, cell % SIZE, value);
+    }
+
+    private void put(int row, int column, int value) {
+        boolean conflicts = tracker.getConflicts() > 0;
+        sudokuSolution[row][column] = value;
+        tracker.set(row, column, value);
+        saveSudoku();
+        board.invalidateCell(row, column);
+
+        if (tracker.getFilled() == SIZE * SIZE) {
+            if (tracker.isSolved()) {
+                if (currentLevel < LEVELS) currentLevel++; // Level up
+                if (currentLevel > maxLevel) {
+                    maxLevel = currentLevel;
+                    preferences.edit().putInt(PREF_LVL, maxLevel).apply();
                 }
+                showResult(true);
+            } else {
+                showResult(false);
             }
-            highlights();
-            preferences.edit().putInt(PREF_POS, currentValue).apply();
+        } else if (conflicts || tracker.getConflicts() > 0 || board.isPencilMarks()) {
+            // Conflicts and candidates can change only in the row, column and box of the cell
+            board.invalidatePeers(row, column);
         }
     }
 
+    /**
+     * Select the cell of the next deduction and tell why
+     */
+    private void showHint() {
+        String message;
+        if (tracker.getConflicts() > 0) {
+            message = getString(R.string.hint_conflicts);
+        } else if (!tracker.nextHint(hint)) {
+            message = getString(R.string.hint_none);
+        } else {
+            board.setSelected(hint.row, hint.column);
+            int id;
+            switch (hint.unit) {
+                case CandidateGrid.Hint.BOX:
+                    id = R.string.hint_hidden_box;
+                    break;
+                case CandidateGrid.Hint.ROW:
+                    id = R.string.hint_hidden_row;
+                    break;
+                case CandidateGrid.Hint.COLUMN:
+                    id = R.string.hint_hidden_column;
+                    break;
+                default:
+                    id = R.string.hint_naked_single;
+            }
+            message = getString(id, hint.value);
+        }
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+    }
 
     private void highlights() {
-        for (int a = 0; a < SIZE; a++) {
-            for (int b = 0; b < SIZE; b++) {
-                if (sudokuSolution[a][b] == currentValue) {
-                    cells[a][b].setTextColor(getResources().getColor(R.color.highlight_text));
-                    cells[a][b].startAnimation(animationScale);
-                } else {
-                    cells[a][b].setTextColor(Color.BLACK);
-                }
-            }
-            for (int i = 0; i < SIZE; i++) {
-                if (Integer.parseInt(controls[i].getText().toString()) == currentValue) {
-                    controls[i].setTextColor(getResources().getColor(R.color.highlight_text));
-                } else {
-                    controls[i].setTextColor(Color.BLACK);
-                }
+        board.setHighlightValue(currentValue);
+        for (int i = 0; i < SIZE; i++) {
+            if (i + 1 == currentValue) {
+                controls[i].setTextColor(getResources().getColor(R.color.highlight_text));
+            } else {
+                controls[i].setTextColor(Color.BLACK);
             }
         }
     }
@@ -361,6 +449,7 @@ public class MainActivity extends Activity implements Button.OnClickListener {
                                 @Override
                                 public void onClick(DialogInterface dialog,
                                                     int which) {
+                                    saveManager.close(); // Coalesced save would die with the process
                                     System.exit(0);
                                 }
 
@@ -375,6 +464,7 @@ public class MainActivity extends Activity implements Button.OnClickListener {
     }
 
     private void showDifficultyDialog() {
+        AlertDialog.Builder difficultyDialog = new AlertDialog.Builder(this);
         //difficultyDialog.setIcon(android.R.drawable.btn_star);
         difficultyDialog.setTitle(R.string.action_difficulty);
 
@@ -410,7 +500,6 @@ public class MainActivity extends Activity implements Button.OnClickListener {
                     public void onClick(DialogInterface dialog, int which) {
                         currentLevel = seekBar.getProgress() + LEVEL_OFFSET + 1;
                         createSudoku();
-                        refreshTable();
                         dialog.dismiss();
                     }
                 })
@@ -428,35 +517,57 @@ public class MainActivity extends Activity implements Button.OnClickListener {
 
     // Save & load sudoku
     private void saveSudoku() {
-        StringBuilder data = new StringBuilder();
+        if (loading) return; // Placeholder or finished grid, the new puzzle is saved on arrival
+        // Coalesced, burst of moves is one write
+        saveManager.requestSave(currentLevel, currentValue, sudokuSolution, givens, journal);
+    }
 
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                data.append(sudokuSolution[i][j]);
+    /**
+     * Load (moves)
+     *
+     * @return - false if there is no saved game, the grid is empty then
+     */
+    private boolean loadSudoku() {
+        currentValue = 1;
+        SaveFormat save = saveManager.load();
+        if (save != null) {
+            sudokuSolution = new int[SIZE][SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                System.arraycopy(save.grid[i], 0, sudokuSolution[i], 0, SIZE);
+                System.arraycopy(save.givens[i], 0, givens[i], 0, SIZE);
             }
+            if (save.level > LEVEL_OFFSET && save.level <= maxLevel) currentLevel = save.level;
+            currentValue = save.value;
+            journal.copyFrom(save.journal);
+        } else if (!loadLegacySudoku()) {
+            sudokuSolution = new int[SIZE][SIZE];
+            tracker.load(sudokuSolution);
+            return false;
         }
-
-        preferences.edit().putString(PREF_DATA, data.toString()).apply();
+        tracker.load(sudokuSolution);
+        return true;
     }
 
-    // Load (moves)
-    private void loadSudoku() {
+    /**
+     * Saves of older versions: 81 digits in preferences, givens are unknown
+     */
+    private boolean loadLegacySudoku() {
         String data = preferences.getString(PREF_DATA, "");
-        if (data.isEmpty()) {
-            createSudoku();
-        } else {
-            sudokuSolution = new int[SIZE][SIZE];
-            int n = 0;
-            moves = 0;
-            for (int i = 0; i < SIZE; i++) {
-                for (int j = 0; j < SIZE; j++) {
-                    int value = (int) (data.charAt(n)) - 48;
-                    sudokuSolution[i][j] = value;
-                    if (value == 0) moves++;
-                    n++;
-                }
+        if (data.length() != SIZE * SIZE) return false;
+
+        sudokuSolution = new int[SIZE][SIZE];
+        int n = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int value = (int) (data.charAt(n)) - 48;
+                sudokuSolution[i][j] = value;
+                givens[i][j] = value != 0;
+                n++;
             }
         }
         currentValue = preferences.getInt(PREF_POS, 1);
+        preferences.edit().remove(PREF_DATA).remove(PREF_POS).apply();
+        saveSudoku();
+        return true;
     }
 }
\ No newline at end of file
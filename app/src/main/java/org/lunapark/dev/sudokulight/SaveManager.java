@@ -0,0 +1,141 @@
+package org.lunapark.dev.sudokulight;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/*
+ * Coalesces save requests: a burst of moves costs one file write.
+ * Requests come from the UI thread, the file is written on a background thread.
+ * The thread is shared by all instances and lives as long as the process, so a write
+ * of a destroyed activity is never dropped and load() of the next one waits for it.
+ */
+public class SaveManager {
+
+    private static final String TAG = "SaveManager";
+    private static final String FILE_NAME = "game.sav";
+    private static final long DELAY = 1000; // ms after the last request
+
+    private final File file;
+    private final SaveFormat format = new SaveFormat();
+    private static Handler ioHandler; // Writes of every instance, in request order
+
+    private final Handler handler = new Handler();
+
+    // Live state of the game, encoded at flush time
+    private int level, value;
+    private int[][] grid;
+    private boolean[][] givens;
+    private MoveJournal journal;
+    private boolean pending;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public SaveManager(Context context) {
+        file = new File(context.getFilesDir(), FILE_NAME);
+        synchronized (SaveManager.class) {
+            if (ioHandler == null) {
+                HandlerThread ioThread = new HandlerThread("SaveManager");
+                ioThread.start();
+                ioHandler = new Handler(ioThread.getLooper());
+            }
+        }
+    }
+
+    /**
+     * Schedule save of the game, arrays are read when the write happens
+     */
+    public void requestSave(int level, int value, int[][] grid, boolean[][] givens, MoveJournal journal) {
+        this.level = level;
+        this.value = value;
+        this.grid = grid;
+        this.givens = givens;
+        this.journal = journal;
+        pending = true;
+        handler.removeCallbacks(flushTask);
+        handler.postDelayed(flushTask, DELAY);
+    }
+
+    /**
+     * Write pending save now, e.g. when activity goes to background
+     */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        if (!pending) return;
+        pending = false;
+
+        format.level = level;
+        format.value = value;
+        for (int i = 0; i < SudokuGrid.SIZE; i++) {
+            System.arraycopy(grid[i], 0, format.grid[i], 0, SudokuGrid.SIZE);
+            System.arraycopy(givens[i], 0, format.givens[i], 0, SudokuGrid.SIZE);
+        }
+        format.journal.copyFrom(journal);
+        final byte[] data = new byte[SaveFormat.LENGTH];
+        final int length = format.encode(data);
+        ioHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    SaveFormat.write(file, data, length);
+                } catch (IOException e) {
+                    Log.e(TAG, "Save failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Block until every posted write is on disk
+     */
+    public void sync() {
+        final CountDownLatch done = new CountDownLatch(1);
+        ioHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Read saved game, writes still in flight are waited for
+     *
+     * @return - saved game or null if there is no valid save
+     */
+    public SaveFormat load() {
+        sync();
+        byte[] data = new byte[SaveFormat.LENGTH];
+        try {
+            int length = SaveFormat.read(file, data);
+            if (length > 0 && format.decode(data, length)) return format;
+        } catch (IOException e) {
+            Log.e(TAG, "Load failed", e);
+        }
+        return null;
+    }
+
+    /**
+     * Write pending save and wait for it, only before the process exits:
+     * the thread outlives activities and load() waits for writes anyway
+     */
+    public void close() {
+        flush();
+        sync();
+    }
+}
@@ -0,0 +1,53 @@
+package org.lunapark.dev.sudokulight;
+
+import android.os.Build;
+
+import java.lang.reflect.Method;
+
+/*
+ * Sections of android.os.Trace, visible in systrace and Perfetto captures of the app.
+ * Trace appeared in API 18 and the app compiles against an older SDK, so its methods
+ * are looked up once by reflection; on older devices the calls do nothing.
+ * Sections must be ended on the thread that began them, in reverse order.
+ */
+final class StartupTrace {
+
+    private static final Method BEGIN, END;
+
+    static {
+        Method begin = null, end = null;
+        if (Build.VERSION.SDK_INT >= 18) {
+            try {
+                Class<?> trace = Class.forName("android.os.Trace");
+                begin = trace.getMethod("beginSection", String.class);
+                end = trace.getMethod("endSection");
+            } catch (Exception e) {
+                begin = end = null;
+            }
+        }
+        BEGIN = begin;
+        END = end;
+    }
+
+    private StartupTrace() {
+    }
+
+    /**
+     * @param section - name shown in the capture, at most 127 characters
+     */
+    static void begin(String section) {
+        if (BEGIN != null) invoke(BEGIN, section);
+    }
+
+    static void end() {
+        if (END != null) invoke(END);
+    }
+
+    private static void invoke(Method method, Object... args) {
+        try {
+            method.invoke(null, args);
+        } catch (Exception e) {
+            // Tracing never breaks the app
+        }
+    }
+}
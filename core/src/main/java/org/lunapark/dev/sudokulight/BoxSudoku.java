@@ -0,0 +1,373 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.Random;
+
+/*
+ * Sudoku of any box size k: k*k digits, (k*k)^2 cells, flat grid with
+ * index = row * k*k + column. Candidates are long bitmasks, so k <= 8.
+ * Generation, uniqueness check and solving share preallocated arrays;
+ * topology tables are built once per box size.
+ */
+public class BoxSudoku {
+
+    public static final int MAX_BOX = 8; // 64 digits in a long mask
+
+    private static final Topology[] TOPOLOGIES = new Topology[MAX_BOX + 1];
+
+    /**
+     * Row, column and box of every cell and the cells of every unit
+     */
+    private static final class Topology {
+        final int box, size, cells;
+        final int[] row, column, square;
+        final int[][] units;
+
+        Topology(int box) {
+            this.box = box;
+            size = box * box;
+            cells = size * size;
+            row = new int[cells];
+            column = new int[cells];
+            square = new int[cells];
+            units = new int[3 * size][size];
+            for (int i = 0; i < cells; i++) {
+                int r = i / size, c = i % size;
+                int s = (r / box) * box + c / box;
+                row[i] = r;
+                column[i] = c;
+                square[i] = s;
+                units[r][c] = i;
+                units[size + c][r] = i;
+                units[2 * size + s][(r % box) * box + c % box] = i;
+            }
+        }
+    }
+
+    private static synchronized Topology topology(int box) {
+        if (box < 2 || box > MAX_BOX) throw new IllegalArgumentException("Box size: " + box);
+        if (TOPOLOGIES[box] == null) TOPOLOGIES[box] = new Topology(box);
+        return TOPOLOGIES[box];
+    }
+
+    private final Topology topology;
+    private final int box, size, cellCount;
+    private final long all;
+    private final Random random;
+
+    // Generator
+    private final int[] grid; // Generated puzzle
+    private final int[] base; // Base pattern
+    private final int[] digits, rowOrder, columnOrder, order, hiddenOrder;
+    private int hiddenCells;
+
+    // Solver
+    private final int[] cells, trail, solution;
+    private final long[] rows, columns, boxes;
+    private int trailSize, solutions, limit;
+
+    /**
+     * @param box - box size k, 3 for a classic 9x9 grid
+     */
+    public BoxSudoku(int box) {
+        topology = topology(box);
+        this.box = box;
+        size = topology.size;
+        cellCount = topology.cells;
+        all = size == 64 ? -1L : (1L << size) - 1;
+        random = new Random(System.currentTimeMillis());
+
+        grid = new int[cellCount];
+        base = new int[cellCount];
+        digits = new int[size + 1];
+        rowOrder = new int[size];
+        columnOrder = new int[size];
+        order = new int[box];
+        hiddenOrder = new int[cellCount];
+
+        cells = new int[cellCount];
+        trail = new int[cellCount];
+        solution = new int[cellCount];
+        rows = new long[size];
+        columns = new long[size];
+        boxes = new long[size];
+
+        // Shifted pattern: each row of a band moves by a box, each band by one
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                base[r * size + c] = (box * (r % box) + r / box + c) % size + 1;
+            }
+        }
+    }
+
+    public int getBox() {
+        return box;
+    }
+
+    /**
+     * @return - digits count, grid side
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /**
+     * @return - quantity of cells hidden by last generate call
+     */
+    public int getHiddenCells() {
+        return hiddenCells;
+    }
+
+    /**
+     * Generate puzzle with single solution
+     *
+     * @param hidden - wanted quantity of hidden cells, less may be hidden if uniqueness requires
+     * @return - internal flat grid, "zero cells" are hidden, overwritten by the next call
+     */
+    public int[] generate(int hidden) {
+        permute();
+
+        for (int i = 0; i < cellCount; i++) {
+            hiddenOrder[i] = i;
+        }
+        SudokuGrid.shuffle(hiddenOrder, random);
+
+        hiddenCells = 0;
+        for (int i = 0; i < cellCount && hiddenCells < hidden; i++) {
+            int cell = hiddenOrder[i];
+            int value = grid[cell];
+            grid[cell] = 0;
+            if (countSolutions(grid, 2) == 1) {
+                hiddenCells++;
+            } else {
+                grid[cell] = value;
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Solve flat grid in place
+     *
+     * @return - true if solution was found and written to grid
+     */
+    public boolean solve(int[] puzzle) {
+        if (!load(puzzle)) return false;
+        run(1);
+        if (solutions == 0) return false;
+        System.arraycopy(solution, 0, puzzle, 0, cellCount);
+        return true;
+    }
+
+    /**
+     * @param limit - search stops as soon as this number of solutions is found
+     * @return - number of solutions, never more than limit
+     */
+    public int countSolutions(int[] puzzle, int limit) {
+        if (!load(puzzle)) return 0;
+        run(limit);
+        return solutions;
+    }
+
+    /**
+     * @return - true if grid is completely and correctly filled
+     */
+    public boolean checkSolution(int[] puzzle) {
+        for (int[] unit : topology.units) {
+            long mask = 0;
+            for (int i : unit) {
+                int value = puzzle[i];
+                if (value < 1 || value > size) return false;
+                mask |= 1L << (value - 1);
+            }
+            if (mask != all) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Random element of the symmetry group applied to the base pattern
+     */
+    private void permute() {
+        for (int i = 0; i <= size; i++) {
+            digits[i] = i;
+        }
+        for (int i = size; i > 1; i--) {
+            int j = random.nextInt(i) + 1;
+            int t = digits[i];
+            digits[i] = digits[j];
+            digits[j] = t;
+        }
+        randomLines(rowOrder);
+        randomLines(columnOrder);
+        boolean transpose = random.nextBoolean();
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int source = transpose
+                        ? columnOrder[c] * size + rowOrder[r]
+                        : rowOrder[r] * size + columnOrder[c];
+                grid[r * size + c] = digits[base[source]];
+            }
+        }
+    }
+
+    private void randomLines(int[] lines) {
+        for (int i = 0; i < box; i++) {
+            order[i] = i;
+        }
+        SudokuGrid.shuffle(order, random);
+        for (int band = 0; band < box; band++) {
+            int first = order[band] * box;
+            for (int k = 0; k < box; k++) {
+                lines[band * box + k] = first + k;
+            }
+            // Lines inside the band
+            for (int k = box - 1; k > 0; k--) {
+                int j = random.nextInt(k + 1);
+                int t = lines[band * box + k];
+                lines[band * box + k] = lines[band * box + j];
+                lines[band * box + j] = t;
+            }
+        }
+    }
+
+    private boolean load(int[] puzzle) {
+        for (int i = 0; i < size; i++) {
+            rows[i] = 0;
+            columns[i] = 0;
+            boxes[i] = 0;
+        }
+        trailSize = 0;
+        solutions = 0;
+        for (int i = 0; i < cellCount; i++) {
+            int value = puzzle[i];
+            cells[i] = value;
+            if (value == 0) continue;
+            if (value < 0 || value > size) return false;
+            long bit = 1L << (value - 1);
+            if (((rows[topology.row[i]] | columns[topology.column[i]] | boxes[topology.square[i]]) & bit) != 0) {
+                return false;
+            }
+            rows[topology.row[i]] |= bit;
+            columns[topology.column[i]] |= bit;
+            boxes[topology.square[i]] |= bit;
+        }
+        return true;
+    }
+
+    private void run(int limit) {
+        this.limit = limit;
+        search();
+    }
+
+    private long candidates(int i) {
+        return ~(rows[topology.row[i]] | columns[topology.column[i]] | boxes[topology.square[i]]) & all;
+    }
+
+    private void place(int i, long bit) {
+        cells[i] = Long.numberOfTrailingZeros(bit) + 1;
+        rows[topology.row[i]] |= bit;
+        columns[topology.column[i]] |= bit;
+        boxes[topology.square[i]] |= bit;
+        trail[trailSize++] = i;
+    }
+
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int i = trail[--trailSize];
+            long bit = ~(1L << (cells[i] - 1));
+            rows[topology.row[i]] &= bit;
+            columns[topology.column[i]] &= bit;
+            boxes[topology.square[i]] &= bit;
+            cells[i] = 0;
+        }
+    }
+
+    /**
+     * Naked and hidden singles until nothing changes
+     *
+     * @return - false on contradiction
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < cellCount; i++) {
+                if (cells[i] != 0) continue;
+                long c = candidates(i);
+                if (c == 0) return false;
+                if ((c & (c - 1)) == 0) {
+                    place(i, c);
+                    changed = true;
+                }
+            }
+            for (int[] unit : topology.units) {
+                long once = 0, twice = 0, placed = 0;
+                for (int i : unit) {
+                    if (cells[i] != 0) {
+                        placed |= 1L << (cells[i] - 1);
+                    } else {
+                        long c = candidates(i);
+                        twice |= once & c;
+                        once |= c;
+                    }
+                }
+                if ((once | placed) != all) return false;
+                long hidden = once & ~twice;
+                while (hidden != 0) {
+                    long bit = hidden & -hidden;
+                    hidden ^= bit;
+                    for (int i : unit) {
+                        if (cells[i] == 0 && (candidates(i) & bit) != 0) {
+                            place(i, bit);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void search() {
+        int mark = trailSize;
+        if (!propagate()) {
+            undo(mark);
+            return;
+        }
+
+        // Minimum remaining values
+        int best = -1, bestCount = size + 1;
+        for (int i = 0; i < cellCount; i++) {
+            if (cells[i] != 0) continue;
+            int count = Long.bitCount(candidates(i));
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+                if (count == 2) break;
+            }
+        }
+
+        if (best < 0) {
+            if (solutions == 0) System.arraycopy(cells, 0, solution, 0, cellCount);
+            solutions++;
+            undo(mark);
+            return;
+        }
+
+        long c = candidates(best);
+        while (c != 0 && solutions < limit) {
+            long bit = c & -c;
+            c ^= bit;
+            int branch = trailSize;
+            place(best, bit);
+            search();
+            undo(branch);
+        }
+        undo(mark);
+    }
+}
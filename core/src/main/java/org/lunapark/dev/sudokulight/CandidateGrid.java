@@ -0,0 +1,107 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Pencil marks of a user grid: candidates of every empty cell as short bitmasks,
+ * bit 0 is digit 1. A change of a cell recomputes only the cell and its 20 peers
+ * from the unit counters of ConflictTracker, undo is the same change back.
+ */
+public class CandidateGrid extends ConflictTracker {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int ALL = (1 << SIZE) - 1;
+    private static final int[][] UNITS = SudokuSolver.UNITS;
+    private static final int[][] PEERS = SudokuGrader.PEERS;
+
+    /**
+     * Next deduction: value of the cell and why it must be there
+     */
+    public static class Hint {
+        public static final int ROW = 0;
+        public static final int COLUMN = 1;
+        public static final int BOX = 2;
+
+        public int row, column, value;
+        public int technique; // SudokuGrader.HIDDEN_SINGLE or SudokuGrader.NAKED_SINGLE
+        public int unit; // ROW, COLUMN or BOX with the only place for the value, -1 for a naked single
+    }
+
+    private final short[] candidates = new short[CELLS];
+
+    @Override
+    public void load(int[][] grid) {
+        super.load(grid);
+        for (int i = 0; i < CELLS; i++) {
+            refresh(i);
+        }
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        super.set(row, column, value);
+        int index = row * SIZE + column;
+        refresh(index);
+        for (int peer : PEERS[index]) {
+            refresh(peer);
+        }
+    }
+
+    /**
+     * @return - candidates of the cell as bits, bit 0 is digit 1, 0 for a filled cell
+     */
+    public int getCandidates(int row, int column) {
+        return candidates[row * SIZE + column];
+    }
+
+    /**
+     * Find the easiest placement: a value with one place left in a box, row or column,
+     * then a cell with one candidate left. Grid with conflicts gives no hints.
+     *
+     * @param hint - filled with the deduction
+     * @return - false if there are no singles
+     */
+    public boolean nextHint(Hint hint) {
+        if (getConflicts() > 0) return false;
+        // Boxes first, they are the easiest to see
+        for (int kind = Hint.BOX; kind >= Hint.ROW; kind--) {
+            for (int u = kind * SIZE; u < (kind + 1) * SIZE; u++) {
+                int[] unit = UNITS[u];
+                int once = 0, twice = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    int c = candidates[unit[k]];
+                    twice |= once & c;
+                    once |= c;
+                }
+                int hidden = once & ~twice;
+                if (hidden == 0) continue;
+                int bit = hidden & -hidden;
+                for (int k = 0; k < SIZE; k++) {
+                    if ((candidates[unit[k]] & bit) != 0) {
+                        return fill(hint, unit[k], bit, SudokuGrader.HIDDEN_SINGLE, kind);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < CELLS; i++) {
+            int c = candidates[i];
+            if (c != 0 && (c & (c - 1)) == 0) {
+                return fill(hint, i, c, SudokuGrader.NAKED_SINGLE, -1);
+            }
+        }
+        return false;
+    }
+
+    private static boolean fill(Hint hint, int index, int bit, int technique, int unit) {
+        hint.row = index / SIZE;
+        hint.column = index % SIZE;
+        hint.value = Integer.numberOfTrailingZeros(bit) + 1;
+        hint.technique = technique;
+        hint.unit = unit;
+        return true;
+    }
+
+    private void refresh(int index) {
+        int row = index / SIZE, column = index % SIZE;
+        candidates[index] = get(row, column) != 0 ? 0 : (short) (~used(row, column) & ALL);
+    }
+}
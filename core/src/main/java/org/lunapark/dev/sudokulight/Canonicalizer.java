@@ -0,0 +1,301 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Minimal form of a puzzle under the Sudoku symmetry group: transposition, band and
+ * stack order, rows inside bands, columns inside stacks and relabeling of digits.
+ * Puzzles equal up to symmetry get the same form and the same fingerprint.
+ *
+ * Form is compared lexicographically by the pattern of givens first (row by row,
+ * given before empty), then by the digits relabeled 1, 2, 3... in order of first
+ * appearance. Rows of the pattern are 9-bit masks, so for a fixed column order the
+ * best row order is a sort of bands and rows; column orders are enumerated only for
+ * rows that can start the minimal pattern and only while the second row of the pattern
+ * stays minimal. Digits are compared only where patterns tie, row by row: a row
+ * order is cut at the first form row worse than the best one.
+ * Not thread safe, use one instance per thread.
+ */
+public class Canonicalizer {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+
+    private final byte[][] sources = new byte[2][CELLS]; // Puzzle and its transposition
+    private final int[][] empty = new int[2][SIZE]; // Bit c of row r is set if cell (r, c) is empty
+    private byte[] source;
+    private int[] rows;
+
+    private final int[] columnMap = new int[SIZE]; // Form column -> source column
+    private final int[] rowMap = new int[SIZE]; // Form row -> source row
+    private final int[][] prefixes = new int[SIZE + 1][SIZE]; // Source row -> pattern of the first c form columns
+    private int[] masks; // Source row -> pattern under columnMap, MSB is column 0
+    private final int[] form = new int[SIZE]; // Pattern rows of the current column order
+    private final int[] bestForm = new int[SIZE];
+    private final int[][] labels = new int[SIZE + 1][SIZE + 1]; // Digit labels after form row r
+    private final int[] nextLabels = new int[SIZE + 1];
+    private final byte[] digits = new byte[CELLS];
+    private final SudokuGrid best = new SudokuGrid();
+    private int first; // Source row of form row 0
+    private int target; // Minimal pattern of form row 0
+    private int usedColumns, usedStacks, usedRows;
+    private boolean found; // Digits of best are set for bestForm
+    private int improvements; // Times digits of best were replaced
+
+    /**
+     * @param puzzle - "zero cells" are empty, not modified
+     * @return - internal grid with the minimal form, overwritten by the next call
+     */
+    public SudokuGrid canonical(SudokuGrid puzzle) {
+        byte[] cells = puzzle.cells();
+        for (int i = 0; i < CELLS; i++) {
+            sources[0][i] = cells[i];
+            sources[1][i] = cells[(i % SIZE) * SIZE + i / SIZE];
+        }
+        target = Integer.MAX_VALUE;
+        for (int o = 0; o < 2; o++) {
+            for (int r = 0; r < SIZE; r++) {
+                int mask = 0;
+                for (int c = 0; c < SIZE; c++) {
+                    if (sources[o][r * SIZE + c] == 0) mask |= 1 << c;
+                }
+                empty[o][r] = mask;
+                target = Math.min(target, key(mask));
+            }
+        }
+
+        found = false;
+        for (int i = 0; i < SIZE; i++) {
+            bestForm[i] = Integer.MAX_VALUE;
+        }
+        for (int o = 0; o < 2; o++) {
+            source = sources[o];
+            rows = empty[o];
+            for (int r = 0; r < SIZE; r++) {
+                if (key(rows[r]) != target) continue;
+                first = r;
+                usedColumns = usedStacks = 0;
+                column(0);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return - 64-bit hash of the minimal form of the puzzle
+     */
+    public long fingerprint(SudokuGrid puzzle) {
+        return hash(canonical(puzzle));
+    }
+
+    /**
+     * FNV-1a over the cells with a final avalanche
+     */
+    public static long hash(SudokuGrid grid) {
+        byte[] cells = grid.cells();
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < CELLS; i++) {
+            h = (h ^ cells[i]) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Smallest pattern of the row over column orders: stacks with more givens first,
+     * givens first inside a stack
+     */
+    private static int key(int emptyMask) {
+        int a = Integer.bitCount(emptyMask & 07);
+        int b = Integer.bitCount(emptyMask & 070);
+        int c = Integer.bitCount(emptyMask & 0700);
+        int low = Math.min(a, Math.min(b, c));
+        int high = Math.max(a, Math.max(b, c));
+        return (stack(low) << 6) | (stack(a + b + c - low - high) << 3) | stack(high);
+    }
+
+    private static int stack(int empty) {
+        return (1 << empty) - 1; // Empty cells are the low bits
+    }
+
+    /**
+     * Choose source column of the form column, the first row stays on the minimal pattern.
+     * Form row 1 is the lower of the other rows of the first band, a column giving it
+     * a higher prefix than another column (or than the best form) can't give the best pattern.
+     */
+    private void column(int c) {
+        if (c == SIZE) {
+            masks = prefixes[SIZE];
+            arrange();
+            return;
+        }
+        // Columns of a new stack with the empty cells of the target in the first row,
+        // or the rest of the current stack: every choice can complete the first row
+        int allowed = 0;
+        if (c % 3 == 0) {
+            int empty = Integer.bitCount((target >> (SIZE - 3 - c)) & 7);
+            for (int stack = 0; stack < 3; stack++) {
+                if ((usedStacks & (1 << stack)) != 0) continue;
+                if (Integer.bitCount((rows[first] >> (stack * 3)) & 7) == empty) allowed |= 7 << (stack * 3);
+            }
+        } else {
+            allowed = 7 << (columnMap[c - 1] / 3 * 3);
+        }
+        // Cell of the first row must be empty exactly where the target is
+        boolean empty = ((target >> (SIZE - 1 - c)) & 1) != 0;
+        allowed &= ~usedColumns & (empty ? rows[first] : ~rows[first]);
+
+        int band = first / 3 * 3;
+        int a = band + (first + 1) % 3, b = band + (first + 2) % 3;
+        int[] from = prefixes[c];
+        int lowest = bestForm[1] >>> (SIZE - 1 - c);
+        int columns = 0;
+        for (int bits = allowed; bits != 0; bits &= bits - 1) {
+            int column = Integer.numberOfTrailingZeros(bits);
+            int second = Math.min((from[a] << 1) | ((rows[a] >> column) & 1),
+                    (from[b] << 1) | ((rows[b] >> column) & 1));
+            if (second < lowest) {
+                lowest = second;
+                columns = 0;
+            }
+            if (second == lowest) columns |= 1 << column;
+        }
+        for (int bits = columns; bits != 0; bits &= bits - 1) {
+            tryColumn(c, Integer.numberOfTrailingZeros(bits));
+        }
+    }
+
+    private void tryColumn(int c, int column) {
+        int[] from = prefixes[c], to = prefixes[c + 1];
+        for (int r = 0; r < SIZE; r++) {
+            to[r] = (from[r] << 1) | ((rows[r] >> column) & 1);
+        }
+        int stack = c % 3 == 0 ? 1 << (column / 3) : 0; // Stack started by the column
+        usedColumns |= 1 << column;
+        usedStacks |= stack;
+        columnMap[c] = column;
+        column(c + 1);
+        usedColumns &= ~(1 << column);
+        usedStacks &= ~stack;
+    }
+
+    /**
+     * Columns are fixed: best pattern is the other rows of the first band sorted,
+     * then the other bands with sorted rows, ordered by their rows
+     */
+    private void arrange() {
+        sortRows();
+        int result = compare(form, 0, bestForm, 0, SIZE);
+        if (result > 0) return;
+        if (result < 0) {
+            System.arraycopy(form, 0, bestForm, 0, SIZE);
+            found = false; // Digits of a worse pattern don't count
+        }
+        // Every row order with this pattern competes on digits
+        usedRows = 0;
+        row(0, !found);
+    }
+
+    /**
+     * Best row order of masks into form
+     */
+    private void sortRows() {
+        int band = first / 3;
+        int a = masks[band * 3 + (first + 1) % 3], b = masks[band * 3 + (first + 2) % 3];
+        form[0] = masks[first];
+        form[1] = Math.min(a, b);
+        form[2] = Math.max(a, b);
+        int second = band == 0 ? 1 : 0;
+        int third = 3 - band - second;
+        sortBand(second, 3);
+        sortBand(third, 6);
+        if (compare(form, 3, form, 6, 3) > 0) {
+            for (int k = 3; k < 6; k++) {
+                int t = form[k];
+                form[k] = form[k + 3];
+                form[k + 3] = t;
+            }
+        }
+    }
+
+    /**
+     * Sorted patterns of the band rows into form[at..at+2]
+     */
+    private void sortBand(int band, int at) {
+        int x = masks[band * 3], y = masks[band * 3 + 1], z = masks[band * 3 + 2];
+        int low = Math.min(x, Math.min(y, z));
+        int high = Math.max(x, Math.max(y, z));
+        form[at] = low;
+        form[at + 1] = x + y + z - low - high;
+        form[at + 2] = high;
+    }
+
+    private static int compare(int[] a, int from, int[] b, int to, int length) {
+        for (int k = 0; k < length; k++) {
+            if (a[from + k] != b[to + k]) return a[from + k] < b[to + k] ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Choose source row with the pattern of the form row
+     *
+     * @param less - digits of form rows before r are already less than the best ones
+     */
+    private void row(int r, boolean less) {
+        if (r == SIZE) {
+            if (less) {
+                System.arraycopy(digits, 0, best.cells(), 0, CELLS);
+                found = true;
+                improvements++;
+            }
+            return;
+        }
+        int from = r == 0 ? first : r % 3 == 0 ? 0 : rowMap[r - 1] / 3 * 3;
+        int to = r == 0 ? first + 1 : r % 3 == 0 ? SIZE : from + 3;
+        for (int row = from; row < to; row++) {
+            if ((usedRows & (1 << row)) != 0 || masks[row] != bestForm[r]) continue;
+            // New band starts in a band not used yet
+            if (r % 3 == 0 && (usedRows & (7 << (row / 3 * 3))) != 0) continue;
+            int result = relabel(r, row, less);
+            if (result > 0) continue;
+            int before = improvements;
+            usedRows |= 1 << row;
+            rowMap[r] = row;
+            row(r + 1, result < 0);
+            usedRows &= ~(1 << row);
+            // Best digits were taken from this path, rows before r are equal now
+            if (improvements != before) less = false;
+        }
+    }
+
+    /**
+     * Digits of the source row relabeled 1, 2, 3... in order of first appearance
+     * into form row r, compared with the best form row unless less
+     *
+     * @return - -1, 0 or 1 as the row is less, equal or greater, -1 if less
+     */
+    private int relabel(int r, int row, boolean less) {
+        int[] labelsBefore = labels[r], labelsAfter = labels[r + 1];
+        System.arraycopy(labelsBefore, 0, labelsAfter, 0, SIZE + 1);
+        int next = nextLabels[r];
+        byte[] cells = best.cells();
+        int result = less ? -1 : 0;
+        for (int k = 0, i = r * SIZE; k < SIZE; k++, i++) {
+            int value = source[row * SIZE + columnMap[k]];
+            if (value != 0) {
+                if (labelsAfter[value] == 0) labelsAfter[value] = ++next;
+                value = labelsAfter[value];
+            }
+            digits[i] = (byte) value;
+            if (result == 0 && value != cells[i]) {
+                result = value < cells[i] ? -1 : 1;
+                if (result > 0) return result;
+            }
+        }
+        nextLabels[r + 1] = next;
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Incremental validation of a 9x9 grid. Keeps digit counters for every row, column
+ * and box, so each change and each check is O(1).
+ */
+public class ConflictTracker {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int UNITS = 3 * SIZE;
+
+    private final byte[] cells = new byte[SudokuGrid.CELLS];
+    private final byte[] counts = new byte[UNITS * (SIZE + 1)]; // unit * 10 + digit
+    private final int[] used = new int[UNITS]; // Digits present in the unit as bits
+    private int conflicts; // Extra copies of digits over all units
+    private int filled;
+
+    /**
+     * Start tracking a grid, "zero cells" are empty
+     */
+    public void load(int[][] grid) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        for (int i = 0; i < UNITS; i++) {
+            used[i] = 0;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = 0;
+        }
+        conflicts = 0;
+        filled = 0;
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                put(i, j, grid[i][j]);
+            }
+        }
+    }
+
+    public int get(int row, int column) {
+        return cells[row * SIZE + column];
+    }
+
+    /**
+     * Put value into the cell, 0 clears it
+     */
+    public void set(int row, int column, int value) {
+        put(row, column, value);
+    }
+
+    private void put(int row, int column, int value) {
+        int index = row * SIZE + column;
+        int old = cells[index];
+        if (old == value) return;
+        if (old != 0) {
+            remove(row, column, old);
+            filled--;
+        }
+        if (value != 0) {
+            add(row, column, value);
+            filled++;
+        }
+        cells[index] = (byte) value;
+    }
+
+    /**
+     * @return - true if value of the cell is repeated in its row, column or box
+     */
+    public boolean isConflict(int row, int column) {
+        int value = cells[row * SIZE + column];
+        if (value == 0) return false;
+        return counts[rowUnit(row) + value] > 1
+                || counts[columnUnit(column) + value] > 1
+                || counts[boxUnit(row, column) + value] > 1;
+    }
+
+    public int getConflicts() {
+        return conflicts;
+    }
+
+    public int getFilled() {
+        return filled;
+    }
+
+    /**
+     * @return - true if every cell is filled and no digit repeats in a row, column or box
+     */
+    public boolean isSolved() {
+        return filled == SudokuGrid.CELLS && conflicts == 0;
+    }
+
+    /**
+     * @return - digits present in the row, column or box of the cell as bits, bit 0 is digit 1
+     */
+    int used(int row, int column) {
+        return used[row] | used[SIZE + column] | used[2 * SIZE + (row / 3) * 3 + column / 3];
+    }
+
+    private void add(int row, int column, int value) {
+        increment(row, rowUnit(row), value);
+        increment(SIZE + column, columnUnit(column), value);
+        increment(2 * SIZE + (row / 3) * 3 + column / 3, boxUnit(row, column), value);
+    }
+
+    private void increment(int unit, int offset, int value) {
+        if (++counts[offset + value] > 1) conflicts++;
+        used[unit] |= 1 << (value - 1);
+    }
+
+    private void remove(int row, int column, int value) {
+        decrement(row, rowUnit(row), value);
+        decrement(SIZE + column, columnUnit(column), value);
+        decrement(2 * SIZE + (row / 3) * 3 + column / 3, boxUnit(row, column), value);
+    }
+
+    private void decrement(int unit, int offset, int value) {
+        if (counts[offset + value]-- > 1) {
+            conflicts--;
+        } else {
+            used[unit] &= ~(1 << (value - 1));
+        }
+    }
+
+    private static int rowUnit(int row) {
+        return row * (SIZE + 1);
+    }
+
+    private static int columnUnit(int column) {
+        return (SIZE + column) * (SIZE + 1);
+    }
+
+    private static int boxUnit(int row, int column) {
+        return (2 * SIZE + (row / 3) * 3 + column / 3) * (SIZE + 1);
+    }
+}
@@ -0,0 +1,141 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Undo/redo history of a game. Every move is one int (cell, old value, new value)
+ * in a fixed ring buffer, the oldest moves are dropped when it is full.
+ * Recording, undo and redo are O(1) and allocate nothing.
+ */
+public class MoveJournal {
+
+    public static final int CAPACITY = 512;
+    public static final int BYTES = 4 + 2 * CAPACITY; // Longest encoded journal
+
+    private final int[] moves = new int[CAPACITY];
+    private int first; // Ring index of the oldest move
+    private int size; // Recorded moves, undone ones included
+    private int cursor; // Applied moves, the rest can be redone
+
+    /**
+     * @param cell - row * 9 + column
+     * @return - packed move
+     */
+    public static int pack(int cell, int oldValue, int newValue) {
+        return (cell << 8) | (oldValue << 4) | newValue;
+    }
+
+    public static int cell(int move) {
+        return move >>> 8;
+    }
+
+    public static int oldValue(int move) {
+        return (move >> 4) & 0xF;
+    }
+
+    public static int newValue(int move) {
+        return move & 0xF;
+    }
+
+    /**
+     * Add move after the applied ones, moves available for redo are lost
+     */
+    public void record(int cell, int oldValue, int newValue) {
+        size = cursor;
+        if (size == CAPACITY) {
+            first = (first + 1) % CAPACITY;
+            size--;
+            cursor--;
+        }
+        moves[(first + size) % CAPACITY] = pack(cell, oldValue, newValue);
+        size++;
+        cursor++;
+    }
+
+    public boolean canUndo() {
+        return cursor > 0;
+    }
+
+    public boolean canRedo() {
+        return cursor < size;
+    }
+
+    /**
+     * Step back, caller restores old value of the move
+     *
+     * @return - packed move, -1 if there is nothing to undo
+     */
+    public int undo() {
+        if (cursor == 0) return -1;
+        cursor--;
+        return moves[(first + cursor) % CAPACITY];
+    }
+
+    /**
+     * Step forward, caller puts new value of the move
+     *
+     * @return - packed move, -1 if there is nothing to redo
+     */
+    public int redo() {
+        if (cursor == size) return -1;
+        int move = moves[(first + cursor) % CAPACITY];
+        cursor++;
+        return move;
+    }
+
+    public void clear() {
+        first = 0;
+        size = 0;
+        cursor = 0;
+    }
+
+    public void copyFrom(MoveJournal journal) {
+        System.arraycopy(journal.moves, 0, moves, 0, CAPACITY);
+        first = journal.first;
+        size = journal.size;
+        cursor = journal.cursor;
+    }
+
+    /**
+     * Oldest move first, 2 bytes per packed move
+     *
+     * @return - quantity of written bytes
+     */
+    public int encode(byte[] out, int offset) {
+        putShort(out, offset, size);
+        putShort(out, offset + 2, cursor);
+        for (int i = 0; i < size; i++) {
+            putShort(out, offset + 4 + 2 * i, moves[(first + i) % CAPACITY]);
+        }
+        return 4 + 2 * size;
+    }
+
+    /**
+     * @return - false if data is not a valid journal, journal is not changed then
+     */
+    public boolean decode(byte[] data, int offset, int length) {
+        if (length < 4) return false;
+        int count = getShort(data, offset);
+        int applied = getShort(data, offset + 2);
+        if (count > CAPACITY || applied > count || length < 4 + 2 * count) return false;
+        for (int i = 0; i < count; i++) {
+            int move = getShort(data, offset + 4 + 2 * i);
+            if (cell(move) >= SudokuGrid.CELLS || oldValue(move) > SudokuGrid.SIZE
+                    || newValue(move) > SudokuGrid.SIZE) return false;
+        }
+        for (int i = 0; i < count; i++) {
+            moves[i] = getShort(data, offset + 4 + 2 * i);
+        }
+        first = 0;
+        size = count;
+        cursor = applied;
+        return true;
+    }
+
+    private static void putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >> 8);
+        out[offset + 1] = (byte) value;
+    }
+
+    private static int getShort(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+}
@@ -0,0 +1,156 @@
+package org.lunapark.dev.sudokulight;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/*
+ * Read-only bank of pre-generated puzzles with fixed size records grouped by level.
+ * Any record is read in O(1) straight from a (memory-mapped) buffer.
+ *
+ * Header, big-endian:
+ * 0   int   magic "SDBK"
+ * 4   short version
+ * 6   short record size
+ * 8   int   quantity of levels
+ * 12  index entries: int level, int quantity of records, long offset of the first record
+ *
+ * Record:
+ * 0   41 bytes cells, 81 nibbles, high nibble first
+ * 41  byte  hardest technique, see SudokuGrader
+ * 42  short difficulty score
+ */
+public class PuzzleBank {
+
+    public static final int MAGIC = 0x5344424B;
+    public static final int VERSION = 1;
+    public static final int HEADER = 12;
+    public static final int INDEX_ENTRY = 16;
+    public static final int RECORD = 44;
+
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int HARDEST = (CELLS + 1) / 2;
+    private static final int SCORE = HARDEST + 1;
+
+    private final ByteBuffer buffer;
+    private final int[] levels;
+    private final int[] counts;
+    private final long[] offsets;
+
+    /**
+     * @param buffer - whole bank, e.g. MappedByteBuffer
+     */
+    public PuzzleBank(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) throw new IOException("Not a puzzle bank");
+        if (buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD) {
+            throw new IOException("Unsupported puzzle bank version " + buffer.getShort(4));
+        }
+        int size = buffer.getInt(8);
+        levels = new int[size];
+        counts = new int[size];
+        offsets = new long[size];
+        for (int i = 0; i < size; i++) {
+            int entry = HEADER + i * INDEX_ENTRY;
+            levels[i] = buffer.getInt(entry);
+            counts[i] = buffer.getInt(entry + 4);
+            offsets[i] = buffer.getLong(entry + 8);
+            if (offsets[i] + (long) counts[i] * RECORD > buffer.capacity()) {
+                throw new IOException("Truncated puzzle bank");
+            }
+        }
+    }
+
+    /**
+     * Map bank file into memory, nothing is read until records are used
+     */
+    public static PuzzleBank open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return open(raf.getChannel(), 0, raf.length());
+        } finally {
+            raf.close(); // Mapping stays valid
+        }
+    }
+
+    /**
+     * Map part of a channel, e.g. uncompressed asset from AssetFileDescriptor
+     */
+    public static PuzzleBank open(FileChannel channel, long offset, long length) throws IOException {
+        return new PuzzleBank(channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+    }
+
+    /**
+     * @return - quantity of puzzles of the level, 0 if the bank has no such level
+     */
+    public int count(int level) {
+        int i = find(level);
+        return i < 0 ? 0 : counts[i];
+    }
+
+    /**
+     * Read puzzle
+     *
+     * @return - difficulty score of the puzzle
+     */
+    public int read(int level, int index, SudokuGrid puzzle) {
+        int position = position(level, index);
+        byte[] cells = puzzle.cells();
+        for (int i = 0; i < CELLS; i++) {
+            int b = buffer.get(position + (i >> 1));
+            cells[i] = (byte) (((i & 1) == 0 ? b >> 4 : b) & 0xF);
+        }
+        return buffer.getShort(position + SCORE);
+    }
+
+    /**
+     * Read random puzzle of the level
+     *
+     * @return - difficulty score of the puzzle
+     */
+    public int random(int level, Random random, SudokuGrid puzzle) {
+        return read(level, random.nextInt(count(level)), puzzle);
+    }
+
+    public int getHardest(int level, int index) {
+        return buffer.get(position(level, index) + HARDEST);
+    }
+
+    public int getScore(int level, int index) {
+        return buffer.getShort(position(level, index) + SCORE);
+    }
+
+    /**
+     * Write record of the format
+     *
+     * @param out - at least RECORD bytes from its position, position is not changed
+     */
+    public static void encode(SudokuGrid puzzle, int score, int hardest, ByteBuffer out) {
+        int position = out.position();
+        byte[] cells = puzzle.cells();
+        for (int i = 0; i < CELLS; i += 2) {
+            int low = i + 1 < CELLS ? cells[i + 1] : 0;
+            out.put(position + (i >> 1), (byte) ((cells[i] << 4) | low));
+        }
+        out.put(position + HARDEST, (byte) hardest);
+        out.putShort(position + SCORE, (short) score);
+    }
+
+    private int position(int level, int index) {
+        int i = find(level);
+        if (i < 0 || index < 0 || index >= counts[i]) {
+            throw new IndexOutOfBoundsException("Level " + level + ", puzzle " + index);
+        }
+        return (int) (offsets[i] + (long) index * RECORD);
+    }
+
+    private int find(int level) {
+        for (int i = 0; i < levels.length; i++) {
+            if (levels[i] == level) return i;
+        }
+        return -1;
+    }
+}
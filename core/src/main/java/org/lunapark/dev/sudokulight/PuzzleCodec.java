@@ -0,0 +1,287 @@
+package org.lunapark.dev.sudokulight;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/*
+ * Line per puzzle text formats, one puzzle is 81 characters, '.' or '0' is empty:
+ *
+ * 4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......
+ * 400000805030000000000700000020000060000080400000010000000603070500200000104000000
+ *
+ * The puzzle may be followed by the solution (81 digits) and an integer rating,
+ * separated by spaces, tabs, ',', ';', ':' or '|'. Only the integer part of a decimal
+ * rating is kept. Lines starting with '#' and empty lines are skipped.
+ *
+ * Reading is a byte state machine over a reusable buffer: no String per line,
+ * constant memory for any input size.
+ */
+public class PuzzleCodec {
+
+    public static final int DEFAULT_BUFFER = 64 * 1024;
+
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int MAX_RATING = 9; // Digits
+
+    // States of the line parser
+    private static final int PUZZLE = 0;
+    private static final int GAP = 1; // Separators after a field
+    private static final int TOKEN = 2; // Solution or rating
+    private static final int SKIP = 3; // Comment or malformed rest of the line
+
+    private static final int STOP = 2; // endLine result
+
+    /**
+     * Receives parsed puzzles, grids are reused for the next line, copy them to keep
+     */
+    public interface Handler {
+        /**
+         * @param line     - line number, first line is 1
+         * @param solution - null if the line has no solution
+         * @param rating   - -1 if the line has no rating
+         * @return - false to stop reading
+         */
+        boolean puzzle(long line, SudokuGrid puzzle, SudokuGrid solution, int rating);
+    }
+
+    private final ByteBuffer buffer;
+    private final SudokuGrid puzzle = new SudokuGrid();
+    private final SudokuGrid solution = new SudokuGrid();
+    private long malformed;
+
+    // Line state
+    private int state, cells, tokenLength, rating, tokenRating;
+    private boolean hasSolution, tokenDot, error, comment;
+
+    public PuzzleCodec() {
+        this(DEFAULT_BUFFER);
+    }
+
+    public PuzzleCodec(int bufferSize) {
+        buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * @return - malformed lines of the last read call
+     */
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public long read(InputStream in, Handler handler) throws IOException {
+        return read(Channels.newChannel(in), handler);
+    }
+
+    /**
+     * Parse the whole channel, the channel is not closed
+     *
+     * @return - quantity of puzzles passed to the handler
+     */
+    public long read(ReadableByteChannel in, Handler handler) throws IOException {
+        byte[] data = buffer.array();
+        long line = 1, count = 0;
+        malformed = 0;
+        startLine();
+        while (true) {
+            buffer.clear();
+            int n = in.read(buffer);
+            if (n < 0) break;
+            for (int i = 0; i < n; i++) {
+                if (state == PUZZLE && cells == 0 && n - i > CELLS) i = puzzle(data, i);
+                int c = data[i];
+                if (c != '\n') {
+                    accept(c);
+                    continue;
+                }
+                int result = endLine(line++, handler);
+                if (result > 0) count++;
+                if (result == STOP) return count;
+                startLine();
+            }
+        }
+        if (endLine(line, handler) > 0) count++;
+        return count;
+    }
+
+    /**
+     * Fast path: whole puzzle is in the buffer
+     *
+     * @return - index of the byte after the puzzle, i if the bytes are not a plain puzzle
+     */
+    private int puzzle(byte[] data, int i) {
+        byte[] grid = puzzle.cells();
+        for (int k = 0; k < CELLS; k++) {
+            int value = data[i + k] - '0';
+            if (value == '.' - '0') value = 0;
+            if (value < 0 || value > 9) return i;
+            grid[k] = (byte) value;
+        }
+        cells = CELLS;
+        state = GAP;
+        return i + CELLS;
+    }
+
+    private void startLine() {
+        state = PUZZLE;
+        cells = 0;
+        rating = -1;
+        hasSolution = false;
+        error = false;
+        comment = false;
+    }
+
+    private void accept(int c) {
+        if (c == '\r') return;
+        switch (state) {
+            case PUZZLE:
+                if (c >= '1' && c <= '9') {
+                    puzzle.set(cells++, c - '0');
+                } else if (c == '.' || c == '0') {
+                    puzzle.set(cells++, 0);
+                } else if (cells == 0 && isSeparator(c)) {
+                    break; // Leading blanks
+                } else if (cells == 0 && c == '#') {
+                    comment = true;
+                    state = SKIP;
+                    break;
+                } else {
+                    error = true;
+                    state = SKIP;
+                    break;
+                }
+                if (cells == CELLS) state = GAP;
+                break;
+            case GAP:
+                if (isSeparator(c)) break;
+                state = TOKEN;
+                tokenLength = 0;
+                tokenRating = 0;
+                tokenDot = false;
+                token(c); // First character of the token
+                break;
+            case TOKEN:
+                token(c);
+                break;
+        }
+    }
+
+    private void token(int c) {
+        if (isSeparator(c)) {
+            endToken();
+            state = GAP;
+        } else if (c >= '0' && c <= '9') {
+            if (tokenLength < CELLS && !hasSolution) solution.set(tokenLength, c - '0');
+            if (!tokenDot && tokenLength < MAX_RATING) tokenRating = tokenRating * 10 + c - '0';
+            tokenLength++;
+        } else if (c == '.' && !tokenDot) {
+            tokenDot = true;
+        } else {
+            error = true;
+            state = SKIP;
+        }
+    }
+
+    private void endToken() {
+        if (tokenLength == CELLS && !tokenDot && !hasSolution && rating < 0) {
+            hasSolution = true;
+        } else if (tokenLength > 0 && (tokenDot || tokenLength <= MAX_RATING) && rating < 0) {
+            rating = tokenRating;
+        } else {
+            error = true;
+        }
+    }
+
+    /**
+     * @return - 0 for a line without puzzle, 1 for a puzzle, STOP if the handler wants no more
+     */
+    private int endLine(long line, Handler handler) {
+        if (state == TOKEN) endToken();
+        if (comment || (cells == 0 && !error)) return 0;
+        if (error || cells < CELLS) {
+            malformed++;
+            return 0;
+        }
+        return handler.puzzle(line, puzzle, hasSolution ? solution : null, rating) ? 1 : STOP;
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == ' ' || c == '\t' || c == ',' || c == ';' || c == ':' || c == '|';
+    }
+
+    /**
+     * Writes puzzles in the same format through a reusable buffer
+     */
+    public static class Writer {
+
+        private final WritableByteChannel out;
+        private final ByteBuffer buffer;
+        private final byte[] data;
+        private final byte empty;
+
+        /**
+         * @param empty - character of empty cells, '.' or '0'
+         */
+        public Writer(WritableByteChannel out, char empty) {
+            this.out = out;
+            this.empty = (byte) empty;
+            buffer = ByteBuffer.allocate(DEFAULT_BUFFER);
+            data = buffer.array();
+        }
+
+        public Writer(OutputStream out, char empty) {
+            this(Channels.newChannel(out), empty);
+        }
+
+        /**
+         * @param solution - null to write the puzzle only
+         * @param rating   - negative to write no rating
+         */
+        public void write(SudokuGrid puzzle, SudokuGrid solution, int rating) throws IOException {
+            if (buffer.remaining() < 2 * CELLS + MAX_RATING + 4) flush();
+            int p = buffer.position();
+            byte[] cells = puzzle.cells();
+            for (int i = 0; i < CELLS; i++) {
+                data[p++] = cells[i] == 0 ? empty : (byte) ('0' + cells[i]);
+            }
+            if (solution != null) {
+                data[p++] = ' ';
+                cells = solution.cells();
+                for (int i = 0; i < CELLS; i++) {
+                    data[p++] = (byte) ('0' + cells[i]);
+                }
+            }
+            if (rating >= 0) {
+                data[p++] = ' ';
+                int start = p;
+                do {
+                    data[p++] = (byte) ('0' + rating % 10);
+                    rating /= 10;
+                } while (rating > 0);
+                // Digits were written backwards
+                for (int i = start, j = p - 1; i < j; i++, j--) {
+                    byte t = data[i];
+                    data[i] = data[j];
+                    data[j] = t;
+                }
+            }
+            data[p++] = '\n';
+            buffer.position(p);
+        }
+
+        /**
+         * Write buffered lines to the channel, the channel is not closed
+         */
+        public void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Short puzzle identifier: 64-bit seed, level and generation mode (uniqueness and
+ * symmetry) packed in 74 bits and written as 15 Crockford base32 characters.
+ * Ids without symmetry are the same as before it was encoded.
+ */
+public class PuzzleId {
+
+    public static final int LENGTH = 15; // 75 bits, 74 are used
+    private static final int MAX_LEVEL = 0x7F;
+    private static final int UNIQUE = 0x80;
+    private static final int SYMMETRY_SHIFT = 8;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    public final long seed;
+    public final int level;
+    public final boolean unique;
+    public final int symmetry; // See Sudoku.setSymmetry
+
+    public PuzzleId(long seed, int level, boolean unique) {
+        this(seed, level, unique, Sudoku.SYMMETRY_NONE);
+    }
+
+    public PuzzleId(long seed, int level, boolean unique, int symmetry) {
+        if (level < 0 || level > MAX_LEVEL) throw new IllegalArgumentException("Level: " + level);
+        if (symmetry < Sudoku.SYMMETRY_NONE || symmetry > Sudoku.SYMMETRY_DIAGONAL) {
+            throw new IllegalArgumentException("Symmetry: " + symmetry);
+        }
+        this.seed = seed;
+        this.level = level;
+        this.unique = unique;
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Generation mode of the sudoku is set from the id
+     *
+     * @return - grid of this puzzle, see Sudoku.generateSudoku(long, int)
+     */
+    public int[][] generate(Sudoku sudoku) {
+        sudoku.setUnique(unique);
+        sudoku.setSymmetry(symmetry);
+        return sudoku.generateSudoku(seed, level);
+    }
+
+    public static String encode(long seed, int level, boolean unique) {
+        return new PuzzleId(seed, level, unique).toString();
+    }
+
+    public static String encode(long seed, int level, boolean unique, int symmetry) {
+        return new PuzzleId(seed, level, unique, symmetry).toString();
+    }
+
+    /**
+     * @param id - 15 characters, case insensitive, I and L read as 1, O as 0
+     */
+    public static PuzzleId decode(String id) {
+        if (id.length() != LENGTH) throw new IllegalArgumentException("Puzzle id: " + id);
+        int high = 0;
+        long low = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            int digit = digit(id.charAt(i));
+            if (digit < 0) throw new IllegalArgumentException("Puzzle id: " + id);
+            high = (high << 5) | (int) (low >>> 59);
+            low = (low << 5) | digit;
+        }
+        int symmetry = high >>> SYMMETRY_SHIFT;
+        if (symmetry > Sudoku.SYMMETRY_DIAGONAL) throw new IllegalArgumentException("Puzzle id: " + id);
+        return new PuzzleId(low, high & MAX_LEVEL, (high & UNIQUE) != 0, symmetry);
+    }
+
+    @Override
+    public String toString() {
+        int high = level | (unique ? UNIQUE : 0) | symmetry << SYMMETRY_SHIFT;
+        long low = seed;
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (low & 31)];
+            low = (low >>> 5) | ((long) (high & 31) << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PuzzleId)) return false;
+        PuzzleId id = (PuzzleId) o;
+        return seed == id.seed && level == id.level && unique == id.unique && symmetry == id.symmetry;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((int) (seed ^ (seed >>> 32)) * 31 + level * 2 + (unique ? 1 : 0)) * 4 + symmetry;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') return c - '0';
+        if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+        switch (c) {
+            case 'O':
+                return 0;
+            case 'I':
+            case 'L':
+                return 1;
+        }
+        for (int i = 10; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,155 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.ArrayDeque;
+
+/*
+ * Background producer of ready puzzles for the current and the next level,
+ * so taking a new game does not run the generator on the caller thread.
+ * A puzzle of any other level is generated next by the same thread and delivered
+ * to the listener when it is ready.
+ */
+public class PuzzleQueue implements Runnable {
+
+    public interface Listener {
+        /**
+         * Called on the thread of take() if a puzzle was ready, otherwise on the worker thread
+         *
+         * @param puzzle - new grid owned by the listener, "zero cells" are hidden
+         */
+        void onPuzzle(int level, int[][] puzzle);
+    }
+
+    private final boolean unique;
+    private final int capacity;
+    private final ArrayDeque<int[][]> current = new ArrayDeque<int[][]>();
+    private final ArrayDeque<int[][]> next = new ArrayDeque<int[][]>();
+    private int level;
+    private Thread thread;
+    private Listener waiting; // Request for an empty buffer, served before the buffers
+    private int waitingLevel;
+
+    /**
+     * @param capacity - ready puzzles kept for each of two levels
+     * @param unique   - see Sudoku.setUnique
+     */
+    public PuzzleQueue(int capacity, boolean unique) {
+        this.capacity = capacity;
+        this.unique = unique;
+    }
+
+    /**
+     * Start filling buffers for the level and the next one
+     */
+    public synchronized void start(int level) {
+        setLevel(level);
+        if (thread != null) return;
+        thread = new Thread(this, "PuzzleQueue");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stopped thread may finish its current puzzle, the puzzle is dropped
+     */
+    public synchronized void stop() {
+        waiting = null;
+        if (thread == null) return;
+        thread.interrupt();
+        thread = null;
+    }
+
+    /**
+     * Take a puzzle: a ready one goes to the listener at once, otherwise the worker
+     * generates it next and the queue is started if needed. A request still waiting
+     * for its puzzle is dropped, the listener of the last request is called once.
+     *
+     * @param level - quantity of hidden cells
+     */
+    public void take(int level, Listener listener) {
+        int[][] puzzle;
+        synchronized (this) {
+            setLevel(level);
+            puzzle = current.poll();
+            waiting = puzzle == null ? listener : null;
+            waitingLevel = level;
+            if (waiting != null) {
+                start(level);
+                thread.setPriority(Thread.NORM_PRIORITY); // Somebody waits for it
+            }
+            notifyAll();
+        }
+        if (puzzle != null) listener.onPuzzle(level, puzzle);
+    }
+
+    /**
+     * @return - ready puzzles for the level
+     */
+    public synchronized int available(int level) {
+        if (level == this.level) return current.size();
+        if (level == this.level + 1) return next.size();
+        return 0;
+    }
+
+    @Override
+    public void run() {
+        // Own generator: a stopped thread may still be generating when a new one starts
+        Sudoku worker = new Sudoku(SudokuGrid.SIZE);
+        worker.setUnique(unique);
+        try {
+            while (true) {
+                int target;
+                synchronized (this) {
+                    if (Thread.currentThread() != thread) return;
+                    while (waiting == null && current.size() >= capacity && next.size() >= capacity) {
+                        wait();
+                        if (Thread.currentThread() != thread) return;
+                    }
+                    target = waiting != null ? waitingLevel : current.size() < capacity ? level : level + 1;
+                }
+
+                int[][] puzzle = copy(worker.generateSudoku(target));
+
+                Listener listener = null;
+                synchronized (this) {
+                    if (Thread.currentThread() != thread) return; // Stopped while generating
+                    // Level may be changed while generating
+                    if (waiting != null && target == waitingLevel) {
+                        listener = waiting;
+                        waiting = null;
+                        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+                    } else if (target == level && current.size() < capacity) {
+                        current.add(puzzle);
+                    } else if (target == level + 1 && next.size() < capacity) {
+                        next.add(puzzle);
+                    }
+                }
+                if (listener != null) listener.onPuzzle(target, puzzle);
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    private void setLevel(int level) {
+        if (level == this.level) return;
+        if (level == this.level + 1) {
+            // Level up, ready puzzles of the next level become current
+            current.clear();
+            current.addAll(next);
+        } else {
+            current.clear();
+        }
+        next.clear();
+        this.level = level;
+        notifyAll();
+    }
+
+    private static int[][] copy(int[][] grid) {
+        int[][] result = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            result[i] = grid[i].clone();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package org.lunapark.dev.sudokulight;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/*
+ * Versioned binary save of a game.
+ *
+ * 0      version
+ * 1      level
+ * 2      current value
+ * 3..13  givens, 81 bits, bit i = cell row * 9 + column
+ * 14..54 cell values, 81 nibbles, high nibble first
+ * 55..   move journal, since version 2, see MoveJournal.encode
+ */
+public class SaveFormat {
+
+    public static final int VERSION = 2;
+    public static final int LENGTH = 55 + MoveJournal.BYTES; // Longest save
+
+    private static final int LENGTH_V1 = 55;
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int GIVENS = 3;
+    private static final int VALUES = GIVENS + (CELLS + 7) / 8;
+
+    public int level;
+    public int value;
+    public final int[][] grid = new int[SIZE][SIZE];
+    public final boolean[][] givens = new boolean[SIZE][SIZE];
+    public final MoveJournal journal = new MoveJournal();
+
+    /**
+     * @param out - at least LENGTH bytes
+     * @return - quantity of written bytes
+     */
+    public int encode(byte[] out) {
+        out[0] = VERSION;
+        out[1] = (byte) level;
+        out[2] = (byte) value;
+        for (int i = GIVENS; i < LENGTH_V1; i++) {
+            out[i] = 0;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            int row = i / SIZE, column = i % SIZE;
+            if (givens[row][column]) out[GIVENS + (i >> 3)] |= 1 << (i & 7);
+        }
+        packNibbles(grid, out, VALUES);
+        return LENGTH_V1 + journal.encode(out, LENGTH_V1);
+    }
+
+    /**
+     * Version 1 saves are read with an empty journal
+     *
+     * @return - false if data is not a save of known version, fields are not changed then
+     */
+    public boolean decode(byte[] data, int length) {
+        if (length < LENGTH_V1 || data[0] < 1 || data[0] > VERSION) return false;
+        for (int i = 0; i < CELLS; i++) {
+            int cell = (data[VALUES + (i >> 1)] >> ((i & 1) == 0 ? 4 : 0)) & 0xF;
+            if (cell > SIZE) return false;
+        }
+        if (data[0] == 1) {
+            journal.clear();
+        } else if (!journal.decode(data, LENGTH_V1, length - LENGTH_V1)) {
+            return false;
+        }
+        level = data[1] & 0xFF;
+        value = data[2] >= 1 && data[2] <= SIZE ? data[2] : 1;
+        for (int i = 0; i < CELLS; i++) {
+            int row = i / SIZE, column = i % SIZE;
+            givens[row][column] = (data[GIVENS + (i >> 3)] & (1 << (i & 7))) != 0;
+        }
+        unpackNibbles(data, VALUES, grid);
+        return true;
+    }
+
+    /**
+     * 81 values as 41 bytes, high nibble first
+     */
+    static void packNibbles(int[][] grid, byte[] out, int offset) {
+        for (int i = 0; i < CELLS; i += 2) {
+            int high = grid[i / SIZE][i % SIZE];
+            int low = i + 1 < CELLS ? grid[(i + 1) / SIZE][(i + 1) % SIZE] : 0;
+            out[offset + (i >> 1)] = (byte) ((high << 4) | low);
+        }
+    }
+
+    static void unpackNibbles(byte[] data, int offset, int[][] grid) {
+        for (int i = 0; i < CELLS; i++) {
+            int b = data[offset + (i >> 1)];
+            grid[i / SIZE][i % SIZE] = ((i & 1) == 0 ? b >> 4 : b) & 0xF;
+        }
+    }
+
+    /**
+     * Write file atomically: data goes to a temporary file which replaces the old one
+     */
+    public static void write(File file, byte[] data, int length) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(temp);
+        try {
+            out.write(data, 0, length);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Can't replace " + file);
+        }
+    }
+
+    /**
+     * @return - quantity of read bytes, -1 if there is no file
+     */
+    public static int read(File file, byte[] buffer) throws IOException {
+        if (!file.exists()) return -1;
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int length = 0;
+            while (length < buffer.length) {
+                int n = in.read(buffer, length, buffer.length - length);
+                if (n < 0) break;
+                length += n;
+            }
+            return length;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.Random;
+
+/*
+ * Created by znak on 01.10.2015.
+ */
+public class Sudoku {
+
+    // Symmetry of hidden cells, see setSymmetry
+    public static final int SYMMETRY_NONE = 0;
+    public static final int SYMMETRY_ROTATIONAL = 1; // 180 degrees around the center
+    public static final int SYMMETRY_MIRROR = 2; // Left and right halves
+    public static final int SYMMETRY_DIAGONAL = 3; // Across the main diagonal
+
+    public static final int DEFAULT_SOLVER_BUDGET = 400;
+
+    // Symmetry -> cell -> its partner in the orbit, orbits have 1 or 2 cells
+    private static final int[][] ORBITS = new int[4][SudokuGrid.CELLS];
+
+    static {
+        for (int i = 0; i < SudokuGrid.CELLS; i++) {
+            int row = i / SudokuGrid.SIZE, column = i % SudokuGrid.SIZE;
+            ORBITS[SYMMETRY_NONE][i] = i;
+            ORBITS[SYMMETRY_ROTATIONAL][i] = SudokuGrid.CELLS - 1 - i;
+            ORBITS[SYMMETRY_MIRROR][i] = row * SudokuGrid.SIZE + SudokuGrid.SIZE - 1 - column;
+            ORBITS[SYMMETRY_DIAGONAL][i] = column * SudokuGrid.SIZE + row;
+        }
+    }
+
+    private final int[] firstRow;
+    private final int[] hiddenCellsArray;
+    private int size = 9;
+    private final SudokuGrid base; // Base pattern, every generated grid is its permutation
+    private final SudokuGrid grid;
+    private final SudokuPermutation permutation;
+    private final SudokuGrid check; // Scratch grid for checkSolution(int[][])
+    private int[][] sudoku; // 2D-array view of the grid
+    private Random random;
+    private final SudokuSolver solver;
+    private final SudokuGrader grader;
+    private final SudokuGrid rated; // Best puzzle of rated generation
+    private final SudokuGrid solution; // Full grid of the symmetric generation
+    private final SudokuGrid symmetric; // Best attempt of the symmetric generation
+    private int score;
+    private boolean unique; // Hide only cells that keep solution unique
+    private int hiddenCells;
+    private int symmetry = SYMMETRY_NONE;
+    private int solverBudget = DEFAULT_SOLVER_BUDGET;
+    private int solverCalls;
+
+    /**
+     * Sudoku class constructor
+     *
+     * @param size - size of game field. Correct value is 9, see BoxSudoku for other sizes.
+     */
+    public Sudoku(int size) {
+        this.size = size;
+        random = new Random(System.currentTimeMillis());
+        base = new SudokuGrid();
+        grid = new SudokuGrid();
+        check = new SudokuGrid();
+        permutation = new SudokuPermutation();
+        sudoku = new int[size][size];
+        firstRow = new int[size];
+        for (int i = 0; i < size; i++) {
+            firstRow[i] = i + 1;
+        }
+        generateBase();
+
+        hiddenCellsArray = new int[size * size];
+        for (int i = 0; i < size * size; i++) {
+            hiddenCellsArray[i] = i;
+        }
+        solver = new SudokuSolver();
+        grader = new SudokuGrader();
+        rated = new SudokuGrid();
+        solution = new SudokuGrid();
+        symmetric = new SudokuGrid();
+    }
+
+    /**
+     * Restart random sequence, generation after the same seed gives the same grid
+     */
+    public void setSeed(long seed) {
+        random.setSeed(seed);
+        // Shuffles continue from the current order, start them from scratch
+        for (int i = 0; i < hiddenCellsArray.length; i++) {
+            hiddenCellsArray[i] = i;
+        }
+        for (int i = 0; i < size; i++) {
+            firstRow[i] = i + 1;
+        }
+    }
+
+    /**
+     * Generation mode
+     *
+     * @param unique - if true, every hidden cell must keep single solution of the grid.
+     *               High levels may get less hidden cells than requested.
+     */
+    public void setUnique(boolean unique) {
+        this.unique = unique;
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Hide cells in symmetric pairs, like published puzzles. Odd levels need a cell that
+     * is its own partner (center, middle column or diagonal), otherwise one cell less is hidden.
+     *
+     * @param symmetry - SYMMETRY_NONE, SYMMETRY_ROTATIONAL, SYMMETRY_MIRROR or SYMMETRY_DIAGONAL
+     */
+    public void setSymmetry(int symmetry) {
+        if (symmetry < SYMMETRY_NONE || symmetry > SYMMETRY_DIAGONAL) {
+            throw new IllegalArgumentException("Unknown symmetry " + symmetry);
+        }
+        this.symmetry = symmetry;
+    }
+
+    public int getSymmetry() {
+        return symmetry;
+    }
+
+    /**
+     * Symmetric unique generation retries with new grids until the level is reached,
+     * the best puzzle is kept. Every retry takes at least one unit of the budget.
+     *
+     * @param solverBudget - solution counts per generateSudoku call
+     */
+    public void setSolverBudget(int solverBudget) {
+        this.solverBudget = solverBudget;
+    }
+
+    /**
+     * @return - solution counts of the last generateSudoku call, about the solver budget at most
+     */
+    public int getSolverCalls() {
+        return solverCalls;
+    }
+
+    /**
+     * @return - quantity of cells hidden by last generateSudoku call
+     */
+    public int getHiddenCells() {
+        return hiddenCells;
+    }
+
+    /**
+     * Generate sudoku grid as a 2D-array int[][].
+     * @param currentLevel - quantity of hidden cells. Maximum value is 9x9 = 81
+     * @return - "zero cells" are hidden
+     */
+    public int[][] generateSudoku(int currentLevel) {
+        return generate(currentLevel).toArray(sudoku);
+    }
+
+    /**
+     * Reproducible generation, the same seed and level always give the same grid
+     * (for the same generation mode).
+     * @param seed - any 64-bit value, see PuzzleId for a short form
+     * @param currentLevel - quantity of hidden cells
+     * @return - "zero cells" are hidden
+     */
+    public int[][] generateSudoku(long seed, int currentLevel) {
+        setSeed(seed);
+        return generateSudoku(currentLevel);
+    }
+
+    /**
+     * Generate sudoku grid without 2D-array view.
+     * @param currentLevel - quantity of hidden cells. Maximum value is 9x9 = 81
+     * @return - internal grid, it is overwritten by the next call
+     */
+    public SudokuGrid generate(int currentLevel) {
+        long start = SudokuMetrics.start();
+
+        solverCalls = 0;
+        if (symmetry != SYMMETRY_NONE && unique) {
+            generateSymmetric(currentLevel);
+        } else {
+            // Random element of the symmetry group, one pass over the grid
+            permutation.randomize(random);
+            permutation.apply(base, grid);
+
+            // Make hidden cells
+            SudokuGrid.shuffle(hiddenCellsArray, random);
+
+            if (symmetry != SYMMETRY_NONE) {
+                solution.copyFrom(grid);
+                hiddenCells = 0;
+                hideSymmetricCells(currentLevel);
+            } else if (unique) {
+                hideUniqueCells(currentLevel);
+            } else {
+                for (int i = 0; i < currentLevel; i++) {
+                    grid.set(hiddenCellsArray[i], 0);
+                }
+                hiddenCells = currentLevel;
+            }
+        }
+
+        SudokuMetrics.stop(SudokuMetrics.GENERATE, start);
+        SudokuMetrics.count(SudokuMetrics.GENERATED, 1);
+        SudokuMetrics.count(SudokuMetrics.HIDDEN_CELLS, hiddenCells);
+        SudokuMetrics.count(SudokuMetrics.HIDDEN_SHORTFALL, currentLevel - hiddenCells);
+        return grid;
+    }
+
+    /**
+     * Generate sudoku grid with difficulty score in a band, see SudokuGrader.
+     * @param currentLevel - quantity of hidden cells
+     * @param minScore - lowest accepted score
+     * @param maxScore - highest accepted score
+     * @param attempts - generation attempts, at least 1. If no puzzle hits the band the closest one is returned
+     * @return - "zero cells" are hidden
+     */
+    public int[][] generateSudoku(int currentLevel, int minScore, int maxScore, int attempts) {
+        return generate(currentLevel, minScore, maxScore, attempts).toArray(sudoku);
+    }
+
+    public SudokuGrid generate(int currentLevel, int minScore, int maxScore, int attempts) {
+        if (attempts < 1) throw new IllegalArgumentException("Attempts: " + attempts);
+        int bestDistance = Integer.MAX_VALUE;
+        int bestHidden = 0;
+        for (int i = 0; i < attempts && bestDistance > 0; i++) {
+            generate(currentLevel);
+            int value = grader.grade(grid);
+            int distance = value < minScore ? minScore - value : value > maxScore ? value - maxScore : 0;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestHidden = hiddenCells;
+                score = value;
+                rated.copyFrom(grid);
+            }
+        }
+        hiddenCells = bestHidden;
+        return rated;
+    }
+
+    /**
+     * @return - difficulty score of the last rated generation
+     */
+    public int getScore() {
+        return score;
+    }
+
+    // Check for right solution
+    public boolean checkSolution(int[][] sudokuArray) {
+        check.copyFrom(sudokuArray);
+        return checkSolution(check);
+    }
+
+    public boolean checkSolution(SudokuGrid solution) {
+        long start = SudokuMetrics.start();
+        boolean result = check(solution.cells());
+        SudokuMetrics.stop(SudokuMetrics.CHECK, start);
+        if (!result) SudokuMetrics.count(SudokuMetrics.CHECK_FAILED, 1);
+        return result;
+    }
+
+    private boolean check(byte[] cells) {
+        int all = (1 << size) - 1;
+        for (int i = 0; i < size; i++) {
+            int row = 0, column = 0, box = 0;
+            int boxStart = (i / 3) * 3 * size + (i % 3) * 3;
+            for (int j = 0; j < size; j++) {
+                int a = cells[i * size + j];
+                int b = cells[j * size + i];
+                int c = cells[boxStart + (j / 3) * size + j % 3];
+                // Zero and out of range values give no bit
+                if (a > 0 && a <= size) row |= 1 << (a - 1);
+                if (b > 0 && b <= size) column |= 1 << (b - 1);
+                if (c > 0 && c <= size) box |= 1 << (c - 1);
+            }
+            // 9 cells with 9 different values
+            if (row != all || column != all || box != all) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remove cells one at a time, keep removal only if solution is still unique
+     */
+    private void hideUniqueCells(int currentLevel) {
+        hiddenCells = 0;
+        for (int i = 0; i < hiddenCellsArray.length && hiddenCells < currentLevel; i++) {
+            int a = hiddenCellsArray[i];
+            int value = grid.get(a);
+            grid.set(a, 0);
+            // Counting stops at the second solution
+            solverCalls++;
+            if (solver.countSolutions(grid, 2) == 1) {
+                hiddenCells++;
+            } else {
+                grid.set(a, value);
+                SudokuMetrics.count(SudokuMetrics.REMOVALS_REJECTED, 1);
+            }
+        }
+    }
+
+    /**
+     * Remove orbits of shown cells in one pass, grid is solution with hiddenCells hidden.
+     * In unique mode cheap checks go first: an unavoidable rectangle rejects the orbit,
+     * singles solving the grid accept it, only the rest needs a solution count.
+     */
+    private void hideSymmetricCells(int currentLevel) {
+        int[] partners = ORBITS[symmetry];
+        for (int i = 0; i < hiddenCellsArray.length && hiddenCells < currentLevel; i++) {
+            int a = hiddenCellsArray[i];
+            int b = partners[a];
+            int cells = a == b ? 1 : 2;
+            // Orbit is tried once, from its lower cell
+            if (b < a || grid.get(a) == 0 || hiddenCells + cells > currentLevel) continue;
+            grid.set(a, 0);
+            grid.set(b, 0);
+            if (!unique) {
+                hiddenCells += cells;
+            } else if (unavoidable(a) || unavoidable(b)) {
+                restore(a, b);
+                SudokuMetrics.count(SudokuMetrics.REMOVALS_SHORTCUT, 1);
+            } else if (solver.solvesBySingles(grid)) {
+                hiddenCells += cells;
+                SudokuMetrics.count(SudokuMetrics.REMOVALS_SHORTCUT, 1);
+            } else {
+                solverCalls++;
+                if (solver.countSolutions(grid, 2) == 1) {
+                    hiddenCells += cells;
+                } else {
+                    restore(a, b);
+                }
+            }
+        }
+    }
+
+    /**
+     * New full grid and cell order per attempt while the level is not reached and the
+     * budget lasts, the best puzzle ends in grid
+     */
+    private void generateSymmetric(int currentLevel) {
+        int best = -1;
+        for (int attempt = 1; ; attempt++) {
+            randomGrid();
+            SudokuGrid.shuffle(hiddenCellsArray, random);
+            hiddenCells = 0;
+            hideSymmetricCells(currentLevel);
+            if (hiddenCells > best) {
+                best = hiddenCells;
+                symmetric.copyFrom(grid);
+            }
+            if (best == currentLevel || Math.max(solverCalls, attempt) >= solverBudget) break;
+        }
+        grid.copyFrom(symmetric);
+        hiddenCells = best;
+    }
+
+    /**
+     * Full grid not related to the base pattern: diagonal boxes are independent,
+     * they get random digits and the solver fills the rest
+     */
+    private void randomGrid() {
+        for (int i = 0; i < SudokuGrid.CELLS; i++) {
+            grid.set(i, 0);
+        }
+        for (int box = 0; box < 3; box++) {
+            SudokuGrid.shuffle(firstRow, random);
+            for (int k = 0; k < size; k++) {
+                grid.set(box * 3 + k / 3, box * 3 + k % 3, firstRow[k]);
+            }
+        }
+        solver.solve(grid);
+        permutation.randomize(random);
+        permutation.apply(grid, solution);
+        grid.copyFrom(solution);
+    }
+
+    private void restore(int a, int b) {
+        grid.set(a, solution.get(a));
+        grid.set(b, solution.get(b));
+        SudokuMetrics.count(SudokuMetrics.REMOVALS_REJECTED, 1);
+    }
+
+    /**
+     * Hidden cell is a corner of a rectangle of hidden cells in two boxes with digits
+     * a b / b a: swapping them gives a second solution
+     */
+    private boolean unavoidable(int cell) {
+        int row = cell / size, column = cell % size;
+        int a = solution.get(cell);
+        for (int c = 0; c < size; c++) {
+            if (c == column || grid.get(row, c) != 0) continue;
+            int b = solution.get(row, c);
+            for (int r = 0; r < size; r++) {
+                if (r == row || grid.get(r, column) != 0 || grid.get(r, c) != 0) continue;
+                if (solution.get(r, column) != b || solution.get(r, c) != a) continue;
+                if (r / 3 == row / 3 || c / 3 == column / 3) return true;
+            }
+        }
+        return false;
+    }
+
+    private void generateBase() {
+        // 1st row
+        for (int i = 0; i < size; i++) {
+            base.set(0, i, firstRow[i]);
+        }
+
+        generateSudokuRow(0, 1, 3); // 2nd row
+        generateSudokuRow(1, 2, 3);
+
+        generateSudokuRow(0, 3, 1);
+        generateSudokuRow(3, 4, 3);
+        generateSudokuRow(4, 5, 3);
+
+        generateSudokuRow(3, 6, 1);
+        generateSudokuRow(6, 7, 3);
+        generateSudokuRow(7, 8, 3);
+    }
+
+    private void generateSudokuRow(int rowSrc, int rowDst, int offset) {
+        for (int i = 0; i < size; i++) {
+            int b = i + offset;
+            if (b >= size) b -= size;
+            base.set(rowDst, i, base.get(rowSrc, b));
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Difficulty rating: solves a puzzle with human techniques, always trying the
+ * easiest one first. Score is the sum of weights of all applied steps.
+ */
+public class SudokuGrader {
+
+    public static final int HIDDEN_SINGLE = 0;
+    public static final int NAKED_SINGLE = 1;
+    public static final int POINTING = 2;
+    public static final int BOX_LINE = 3;
+    public static final int NAKED_PAIR = 4;
+    public static final int HIDDEN_PAIR = 5;
+    public static final int NAKED_TRIPLE = 6;
+    public static final int X_WING = 7;
+    public static final int GUESS = 8; // No technique helps, puzzle needs trial and error
+
+    public static final String[] TECHNIQUES = {
+            "Hidden single", "Naked single", "Pointing", "Box/line reduction",
+            "Naked pair", "Hidden pair", "Naked triple", "X-wing", "Guess"
+    };
+    private static final int[] WEIGHTS = {1, 2, 5, 5, 10, 15, 20, 30, 100};
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int ALL = (1 << SIZE) - 1;
+    private static final int[][] UNITS = SudokuSolver.UNITS;
+    private static final int[] ROW = SudokuSolver.ROW;
+    private static final int[] COLUMN = SudokuSolver.COLUMN;
+    private static final int[] BOX = SudokuSolver.BOX;
+    // 20 cells sharing a unit with the cell
+    static final int[][] PEERS = new int[CELLS][20];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            int n = 0;
+            for (int j = 0; j < CELLS; j++) {
+                if (j != i && (ROW[i] == ROW[j] || COLUMN[i] == COLUMN[j] || BOX[i] == BOX[j])) {
+                    PEERS[i][n++] = j;
+                }
+            }
+        }
+    }
+
+    private final int[] values = new int[CELLS];
+    private final int[] candidates = new int[CELLS];
+    private final int[] positions = new int[SIZE]; // Scratch: digit -> cells of a unit as bits
+    private int empty;
+    private int score;
+    private int hardest;
+    private final int[] steps = new int[TECHNIQUES.length];
+
+    /**
+     * Rate puzzle
+     *
+     * @param puzzle - "zero cells" are empty, not modified
+     * @return - difficulty score, -1 if puzzle is contradictory
+     */
+    public int grade(SudokuGrid puzzle) {
+        score = 0;
+        hardest = -1;
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = 0;
+        }
+        if (!load(puzzle.cells())) return -1;
+
+        while (empty > 0) {
+            int technique = step();
+            if (technique < 0) return -1;
+            if (technique == GUESS) {
+                record(GUESS);
+                break;
+            }
+            record(technique);
+        }
+        return score;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return - hardest technique used by the last grade call, -1 for a solved grid
+     */
+    public int getHardest() {
+        return hardest;
+    }
+
+    /**
+     * @return - how many times the technique was applied by the last grade call
+     */
+    public int getSteps(int technique) {
+        return steps[technique];
+    }
+
+    private void record(int technique) {
+        score += WEIGHTS[technique];
+        steps[technique]++;
+        if (technique > hardest) hardest = technique;
+    }
+
+    private boolean load(byte[] cells) {
+        empty = 0;
+        for (int i = 0; i < CELLS; i++) {
+            values[i] = cells[i];
+            candidates[i] = cells[i] == 0 ? ALL : 0;
+            if (cells[i] == 0) empty++;
+        }
+        for (int i = 0; i < CELLS; i++) {
+            int value = values[i];
+            if (value == 0) continue;
+            int bit = 1 << (value - 1);
+            for (int peer : PEERS[i]) {
+                if (values[peer] == value) return false;
+                candidates[peer] &= ~bit;
+            }
+        }
+        return true;
+    }
+
+    private void place(int i, int bit) {
+        values[i] = Integer.numberOfTrailingZeros(bit) + 1;
+        candidates[i] = 0;
+        empty--;
+        for (int peer : PEERS[i]) {
+            candidates[peer] &= ~bit;
+        }
+    }
+
+    /**
+     * Apply the easiest technique that makes progress
+     *
+     * @return - applied technique, GUESS if nothing helps, -1 on contradiction
+     */
+    private int step() {
+        for (int i = 0; i < CELLS; i++) {
+            if (values[i] == 0 && candidates[i] == 0) return -1;
+        }
+        if (hiddenSingle()) return HIDDEN_SINGLE;
+        if (nakedSingle()) return NAKED_SINGLE;
+        if (pointing()) return POINTING;
+        if (boxLine()) return BOX_LINE;
+        if (nakedPair()) return NAKED_PAIR;
+        if (hiddenPair()) return HIDDEN_PAIR;
+        if (nakedTriple()) return NAKED_TRIPLE;
+        if (xWing()) return X_WING;
+        return GUESS;
+    }
+
+    /**
+     * Fill positions[d] with bits k of unit cells having candidate d + 1
+     */
+    private void positions(int[] unit) {
+        for (int d = 0; d < SIZE; d++) {
+            positions[d] = 0;
+        }
+        for (int k = 0; k < SIZE; k++) {
+            int c = candidates[unit[k]];
+            while (c != 0) {
+                int d = Integer.numberOfTrailingZeros(c);
+                c &= c - 1;
+                positions[d] |= 1 << k;
+            }
+        }
+    }
+
+    private boolean hiddenSingle() {
+        for (int[] unit : UNITS) {
+            int once = 0, twice = 0;
+            for (int k = 0; k < SIZE; k++) {
+                int c = candidates[unit[k]];
+                twice |= once & c;
+                once |= c;
+            }
+            int hidden = once & ~twice;
+            if (hidden == 0) continue;
+            int bit = hidden & -hidden;
+            for (int k = 0; k < SIZE; k++) {
+                if ((candidates[unit[k]] & bit) != 0) {
+                    place(unit[k], bit);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedSingle() {
+        for (int i = 0; i < CELLS; i++) {
+            int c = candidates[i];
+            if (c != 0 && (c & (c - 1)) == 0) {
+                place(i, c);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Digit of a box limited to one row or column is removed from the rest of that line
+     */
+    private boolean pointing() {
+        for (int b = 0; b < SIZE; b++) {
+            int[] box = UNITS[2 * SIZE + b];
+            for (int d = 0; d < SIZE; d++) {
+                int bit = 1 << d;
+                int row = -1, column = -1, count = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    int i = box[k];
+                    if ((candidates[i] & bit) == 0) continue;
+                    row = count == 0 || row == ROW[i] ? ROW[i] : -2;
+                    column = count == 0 || column == COLUMN[i] ? COLUMN[i] : -2;
+                    count++;
+                }
+                if (count < 2) continue;
+                if (row >= 0 && eliminate(UNITS[row], bit, BOX, b)) return true;
+                if (column >= 0 && eliminate(UNITS[SIZE + column], bit, BOX, b)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Digit of a line limited to one box is removed from the rest of that box
+     */
+    private boolean boxLine() {
+        for (int u = 0; u < 2 * SIZE; u++) {
+            int[] line = UNITS[u];
+            int[] lineOf = u < SIZE ? ROW : COLUMN;
+            for (int d = 0; d < SIZE; d++) {
+                int bit = 1 << d;
+                int box = -1, count = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    int i = line[k];
+                    if ((candidates[i] & bit) == 0) continue;
+                    box = count == 0 || box == BOX[i] ? BOX[i] : -2;
+                    count++;
+                }
+                if (count < 2 || box < 0) continue;
+                if (eliminate(UNITS[2 * SIZE + box], bit, lineOf, u % SIZE)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove bits from cells of unit, except cells with owner[i] == keep
+     */
+    private boolean eliminate(int[] unit, int bits, int[] owner, int keep) {
+        boolean changed = false;
+        for (int k = 0; k < SIZE; k++) {
+            int i = unit[k];
+            if (owner[i] != keep && (candidates[i] & bits) != 0) {
+                candidates[i] &= ~bits;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Remove bits from cells of unit not listed in mask (bits k of unit)
+     */
+    private boolean eliminateOutside(int[] unit, int bits, int mask) {
+        boolean changed = false;
+        for (int k = 0; k < SIZE; k++) {
+            int i = unit[k];
+            if ((mask & (1 << k)) == 0 && (candidates[i] & bits) != 0) {
+                candidates[i] &= ~bits;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private boolean nakedPair() {
+        for (int[] unit : UNITS) {
+            for (int a = 0; a < SIZE; a++) {
+                int c = candidates[unit[a]];
+                if (Integer.bitCount(c) != 2) continue;
+                for (int b = a + 1; b < SIZE; b++) {
+                    if (candidates[unit[b]] != c) continue;
+                    if (eliminateOutside(unit, c, (1 << a) | (1 << b))) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenPair() {
+        for (int[] unit : UNITS) {
+            positions(unit);
+            for (int d1 = 0; d1 < SIZE; d1++) {
+                int cells = positions[d1];
+                if (Integer.bitCount(cells) != 2) continue;
+                for (int d2 = d1 + 1; d2 < SIZE; d2++) {
+                    if (positions[d2] != cells) continue;
+                    int pair = (1 << d1) | (1 << d2);
+                    boolean changed = false;
+                    for (int k = 0; k < SIZE; k++) {
+                        int i = unit[k];
+                        if ((cells & (1 << k)) != 0 && candidates[i] != pair) {
+                            candidates[i] = pair;
+                            changed = true;
+                        }
+                    }
+                    if (changed) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedTriple() {
+        for (int[] unit : UNITS) {
+            for (int a = 0; a < SIZE; a++) {
+                int ca = candidates[unit[a]];
+                if (ca == 0 || Integer.bitCount(ca) > 3) continue;
+                for (int b = a + 1; b < SIZE; b++) {
+                    int cb = candidates[unit[b]];
+                    if (cb == 0 || Integer.bitCount(ca | cb) > 3) continue;
+                    for (int c = b + 1; c < SIZE; c++) {
+                        int cc = candidates[unit[c]];
+                        int union = ca | cb | cc;
+                        if (cc == 0 || Integer.bitCount(union) != 3) continue;
+                        if (eliminateOutside(unit, union, (1 << a) | (1 << b) | (1 << c))) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean xWing() {
+        // Base rows then base columns
+        for (int base = 0; base < 2; base++) {
+            for (int d = 0; d < SIZE; d++) {
+                int bit = 1 << d;
+                for (int a = 0; a < SIZE; a++) {
+                    int pa = linePositions(UNITS[base * SIZE + a], bit);
+                    if (Integer.bitCount(pa) != 2) continue;
+                    for (int b = a + 1; b < SIZE; b++) {
+                        if (linePositions(UNITS[base * SIZE + b], bit) != pa) continue;
+                        // Cover lines are the two crossing lines
+                        int cover = (1 - base) * SIZE;
+                        int mask = (1 << a) | (1 << b);
+                        int p = pa;
+                        boolean changed = false;
+                        while (p != 0) {
+                            int k = Integer.numberOfTrailingZeros(p);
+                            p &= p - 1;
+                            changed |= eliminateOutside(UNITS[cover + k], bit, mask);
+                        }
+                        if (changed) return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int linePositions(int[] line, int bit) {
+        int result = 0;
+        for (int k = 0; k < SIZE; k++) {
+            if ((candidates[line[k]] & bit) != 0) result |= 1 << k;
+        }
+        return result;
+    }
+}
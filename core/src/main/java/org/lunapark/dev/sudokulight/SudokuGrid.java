@@ -0,0 +1,89 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.Random;
+
+/*
+ * Compact 9x9 grid stored in a single byte[81], index = row * 9 + column.
+ */
+public class SudokuGrid {
+
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+
+    private final byte[] cells = new byte[CELLS];
+
+    public int get(int index) {
+        return cells[index];
+    }
+
+    public int get(int row, int column) {
+        return cells[row * SIZE + column];
+    }
+
+    public void set(int index, int value) {
+        cells[index] = (byte) value;
+    }
+
+    public void set(int row, int column, int value) {
+        cells[row * SIZE + column] = (byte) value;
+    }
+
+    /**
+     * Direct access to cells for hot loops, index = row * 9 + column
+     */
+    public byte[] cells() {
+        return cells;
+    }
+
+    public void copyFrom(SudokuGrid grid) {
+        System.arraycopy(grid.cells, 0, cells, 0, CELLS);
+    }
+
+    public void copyFrom(int[][] array) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                cells[i * SIZE + j] = (byte) array[i][j];
+            }
+        }
+    }
+
+    /**
+     * Copy grid to 2D-array view
+     *
+     * @param array - int[9][9], array[row][column]
+     * @return - the same array
+     */
+    public int[][] toArray(int[][] array) {
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                array[i][j] = cells[i * SIZE + j];
+            }
+        }
+        return array;
+    }
+
+    public int[][] toArray() {
+        return toArray(new int[SIZE][SIZE]);
+    }
+
+    /**
+     * Fisher-Yates shuffle without boxing
+     */
+    public static void shuffle(int[] array, Random random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = array[i];
+            array[i] = array[j];
+            array[j] = t;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            builder.append(cells[i] == 0 ? '.' : (char) ('0' + cells[i]));
+        }
+        return builder.toString();
+    }
+}
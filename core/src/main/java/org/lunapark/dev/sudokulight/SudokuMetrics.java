@@ -0,0 +1,193 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Opt-in counters and latency histograms of the engine, shared by all threads.
+ * Histograms have fixed log-linear buckets (4 per power of two, error below 25%),
+ * a sample is one atomic increment. Disabled metrics cost one static field read.
+ */
+public final class SudokuMetrics {
+
+    // Timers
+    public static final int GENERATE = 0;
+    public static final int SOLVE = 1;
+    public static final int COUNT_SOLUTIONS = 2; // Uniqueness checks
+    public static final int CHECK = 3;
+    public static final String[] TIMERS = {"generate", "solve", "countSolutions", "checkSolution"};
+
+    // Counters
+    public static final int GENERATED = 0;
+    public static final int HIDDEN_CELLS = 1; // Sum over generated puzzles
+    public static final int HIDDEN_SHORTFALL = 2; // Requested but not hidden to keep solution unique
+    public static final int REMOVALS_REJECTED = 3;
+    public static final int UNSOLVABLE = 4;
+    public static final int CHECK_FAILED = 5;
+    public static final int REMOVALS_SHORTCUT = 6; // Decided without counting solutions
+    public static final String[] COUNTERS = {
+            "generated", "hiddenCells", "hiddenShortfall", "removalsRejected", "unsolvable", "checkFailed",
+            "removalsShortcut"
+    };
+
+    private static final int SUB_BITS = 2;
+    private static final int SUB = 1 << SUB_BITS; // Buckets per power of two
+    private static final int BUCKETS = 64 * SUB;
+
+    private static volatile boolean enabled;
+    private static final AtomicLongArray counters = new AtomicLongArray(COUNTERS.length);
+    private static final AtomicLongArray buckets = new AtomicLongArray(TIMERS.length * BUCKETS);
+    private static final AtomicLongArray sums = new AtomicLongArray(TIMERS.length); // ns
+
+    private SudokuMetrics() {
+    }
+
+    public static void setEnabled(boolean enabled) {
+        SudokuMetrics.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return - start time for stop, 0 if metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Record time since start, nothing if start was taken with metrics disabled
+     */
+    public static void stop(int timer, long start) {
+        if (start != 0) record(timer, System.nanoTime() - start);
+    }
+
+    public static void record(int timer, long nanos) {
+        if (!enabled) return;
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(timer * BUCKETS + bucket(nanos));
+        sums.addAndGet(timer, nanos);
+    }
+
+    public static void count(int counter, long delta) {
+        if (enabled) counters.addAndGet(counter, delta);
+    }
+
+    public static void reset() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0);
+        }
+        for (int i = 0; i < sums.length(); i++) {
+            sums.set(i, 0);
+        }
+    }
+
+    /**
+     * Copy of all values, samples recorded during the copy may be partly included
+     */
+    public static Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        for (int i = 0; i < COUNTERS.length; i++) {
+            snapshot.counters[i] = counters.get(i);
+        }
+        for (int i = 0; i < TIMERS.length; i++) {
+            snapshot.sums[i] = sums.get(i);
+            for (int b = 0; b < BUCKETS; b++) {
+                long n = buckets.get(i * BUCKETS + b);
+                snapshot.buckets[i * BUCKETS + b] = n;
+                snapshot.counts[i] += n;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Values below SUB have own buckets, then SUB buckets per power of two
+     */
+    static int bucket(long nanos) {
+        if (nanos < SUB) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB - 1);
+        return (exponent - SUB_BITS + 1) * SUB + mantissa;
+    }
+
+    /**
+     * @return - highest value of the bucket
+     */
+    static long bucketLimit(int bucket) {
+        if (bucket < SUB) return bucket;
+        int shift = bucket / SUB - 1;
+        long lower = (long) (SUB + bucket % SUB) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counters = new long[COUNTERS.length];
+        private final long[] buckets = new long[TIMERS.length * BUCKETS];
+        private final long[] counts = new long[TIMERS.length];
+        private final long[] sums = new long[TIMERS.length];
+
+        public long getCounter(int counter) {
+            return counters[counter];
+        }
+
+        /**
+         * @return - quantity of samples of the timer
+         */
+        public long getCount(int timer) {
+            return counts[timer];
+        }
+
+        /**
+         * @return - mean time in ns, 0 if there are no samples
+         */
+        public long getMean(int timer) {
+            return counts[timer] == 0 ? 0 : sums[timer] / counts[timer];
+        }
+
+        /**
+         * @param percentile - 0..100
+         * @return - time in ns not exceeded by the percentile of samples, rounded up to the bucket
+         */
+        public long getPercentile(int timer, double percentile) {
+            long rank = (long) Math.ceil(counts[timer] * percentile / 100);
+            if (rank < 1) rank = 1;
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets[timer * BUCKETS + b];
+                if (seen >= rank) return bucketLimit(b);
+            }
+            return 0;
+        }
+
+        /**
+         * One line per counter and timer, times in microseconds
+         */
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < COUNTERS.length; i++) {
+                out.append(COUNTERS[i]).append(' ').append(counters[i]).append('\n');
+            }
+            for (int i = 0; i < TIMERS.length; i++) {
+                out.append(TIMERS[i]).append(" n=").append(counts[i]);
+                if (counts[i] > 0) {
+                    out.append(" mean=").append(micros(getMean(i)))
+                            .append(" p50=").append(micros(getPercentile(i, 50)))
+                            .append(" p99=").append(micros(getPercentile(i, 99)))
+                            .append(" max=").append(micros(getPercentile(i, 100)));
+                }
+                out.append('\n');
+            }
+            return out.toString();
+        }
+
+        private static String micros(long nanos) {
+            return (nanos / 1000) + "." + (nanos % 1000) / 100 + "us";
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.Random;
+
+/*
+ * Element of the 9x9 sudoku symmetry group: digit relabelling, band and stack order,
+ * row order inside each band, column order inside each stack and transpose.
+ * Applied as a single remap pass over a flat grid.
+ */
+public class SudokuPermutation {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int BOX = 3;
+
+    // All 6 orders of 3 elements
+    private static final int[][] ORDERS = {
+            {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+    };
+    // Cell index -> index of the mirrored cell
+    private static final int[] TRANSPOSE = new int[CELLS];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            TRANSPOSE[i] = (i % SIZE) * SIZE + i / SIZE;
+        }
+    }
+
+    private final byte[] digits = new byte[SIZE + 1]; // Digit relabelling, 0 stays 0
+    private final int[] rows = new int[SIZE]; // Destination row -> source row
+    private final int[] columns = new int[SIZE];
+    private final int[] remap = new int[CELLS]; // Destination cell -> source cell
+    private boolean transpose;
+
+    public SudokuPermutation() {
+        identity();
+    }
+
+    public void identity() {
+        for (int i = 0; i <= SIZE; i++) {
+            digits[i] = (byte) i;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            rows[i] = i;
+            columns[i] = i;
+        }
+        transpose = false;
+        compose();
+    }
+
+    /**
+     * Pick a uniformly random element of the group
+     */
+    public void randomize(Random random) {
+        // Start from identity, so the result depends only on the random sequence
+        for (int i = 0; i <= SIZE; i++) {
+            digits[i] = (byte) i;
+        }
+        for (int i = SIZE; i > 1; i--) {
+            int j = random.nextInt(i) + 1;
+            byte t = digits[i];
+            digits[i] = digits[j];
+            digits[j] = t;
+        }
+        randomLines(rows, random);
+        randomLines(columns, random);
+        transpose = random.nextBoolean();
+        compose();
+    }
+
+    /**
+     * Permute grid
+     *
+     * @param src - source grid
+     * @param dst - destination grid, must not be the source
+     */
+    public void apply(SudokuGrid src, SudokuGrid dst) {
+        byte[] from = src.cells();
+        byte[] to = dst.cells();
+        for (int i = 0; i < CELLS; i++) {
+            to[i] = digits[from[remap[i]]];
+        }
+    }
+
+    /**
+     * Band order, then line order inside every band
+     */
+    private static void randomLines(int[] lines, Random random) {
+        int[] bands = ORDERS[random.nextInt(ORDERS.length)];
+        for (int band = 0; band < BOX; band++) {
+            int[] order = ORDERS[random.nextInt(ORDERS.length)];
+            for (int k = 0; k < BOX; k++) {
+                lines[band * BOX + k] = bands[band] * BOX + order[k];
+            }
+        }
+    }
+
+    private void compose() {
+        for (int i = 0; i < CELLS; i++) {
+            int source = rows[i / SIZE] * SIZE + columns[i % SIZE];
+            remap[i] = transpose ? TRANSPOSE[source] : source;
+        }
+    }
+}
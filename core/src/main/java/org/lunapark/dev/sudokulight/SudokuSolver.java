@@ -0,0 +1,299 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Bitmask constraint propagation solver for 9x9 grids.
+ */
+public class SudokuSolver {
+
+    public static final int SIZE = 9;
+    public static final int CELLS = SIZE * SIZE;
+    private static final int ALL = (1 << SIZE) - 1; // Digits 1..9 as bits 0..8
+
+    // Cell index (row * 9 + column) -> row, column and box numbers
+    static final int[] ROW = new int[CELLS];
+    static final int[] COLUMN = new int[CELLS];
+    static final int[] BOX = new int[CELLS];
+    // 27 units: 9 rows, 9 columns, 9 boxes
+    static final int[][] UNITS = new int[3 * SIZE][SIZE];
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            int row = i / SIZE;
+            int column = i % SIZE;
+            int box = (row / 3) * 3 + column / 3;
+            ROW[i] = row;
+            COLUMN[i] = column;
+            BOX[i] = box;
+            UNITS[row][column] = i;
+            UNITS[SIZE + column][row] = i;
+            UNITS[2 * SIZE + box][(row % 3) * 3 + column % 3] = i;
+        }
+    }
+
+    private final int[] cells = new int[CELLS];
+    private final int[] rows = new int[SIZE]; // Used digits per row
+    private final int[] columns = new int[SIZE];
+    private final int[] boxes = new int[SIZE];
+    private final int[] trail = new int[CELLS]; // Cells assigned during search
+    private final int[] solution = new int[CELLS];
+    private int trailSize;
+    private int solutions;
+    private int limit;
+
+    /**
+     * Solve grid in place.
+     *
+     * @param grid - grid[row][column], "zero cells" are empty
+     * @return - true if solution was found and written to grid
+     */
+    public boolean solve(int[][] grid) {
+        if (!load(grid)) return false;
+        run(1);
+        if (solutions == 0) return false;
+        for (int i = 0; i < CELLS; i++) {
+            grid[ROW[i]][COLUMN[i]] = solution[i];
+        }
+        return true;
+    }
+
+    /**
+     * Count solutions of the grid, grid is not modified.
+     *
+     * @param grid  - grid[row][column], "zero cells" are empty
+     * @param limit - search stops as soon as this number of solutions is found
+     * @return - number of solutions, never more than limit
+     */
+    public int countSolutions(int[][] grid, int limit) {
+        if (!load(grid)) return 0;
+        run(limit);
+        return solutions;
+    }
+
+    /**
+     * Solve flat grid (index = row * 9 + column) in place.
+     */
+    public boolean solve(int[] grid) {
+        if (!load(grid)) return false;
+        run(1);
+        if (solutions == 0) return false;
+        System.arraycopy(solution, 0, grid, 0, CELLS);
+        return true;
+    }
+
+    /**
+     * Count solutions of flat grid (index = row * 9 + column).
+     */
+    public int countSolutions(int[] grid, int limit) {
+        if (!load(grid)) return 0;
+        run(limit);
+        return solutions;
+    }
+
+    /**
+     * Solve grid in place.
+     */
+    public boolean solve(SudokuGrid grid) {
+        if (!load(grid.cells())) return false;
+        run(1);
+        if (solutions == 0) return false;
+        byte[] cells = grid.cells();
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = (byte) solution[i];
+        }
+        return true;
+    }
+
+    /**
+     * Count solutions of the grid, grid is not modified.
+     */
+    public int countSolutions(SudokuGrid grid, int limit) {
+        if (!load(grid.cells())) return 0;
+        run(limit);
+        return solutions;
+    }
+
+    /**
+     * Naked and hidden singles only, grid is not modified
+     *
+     * @return - true if singles fill the whole grid, its solution is then unique
+     */
+    boolean solvesBySingles(SudokuGrid grid) {
+        if (!load(grid.cells()) || !propagate()) return false;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] == 0) return false;
+        }
+        return true;
+    }
+
+    private boolean load(int[][] grid) {
+        clear();
+        for (int i = 0; i < CELLS; i++) {
+            if (!loadCell(i, grid[ROW[i]][COLUMN[i]])) return false;
+        }
+        return true;
+    }
+
+    private boolean load(int[] grid) {
+        clear();
+        for (int i = 0; i < CELLS; i++) {
+            if (!loadCell(i, grid[i])) return false;
+        }
+        return true;
+    }
+
+    private boolean load(byte[] grid) {
+        clear();
+        for (int i = 0; i < CELLS; i++) {
+            if (!loadCell(i, grid[i])) return false;
+        }
+        return true;
+    }
+
+    private void clear() {
+        for (int i = 0; i < SIZE; i++) {
+            rows[i] = 0;
+            columns[i] = 0;
+            boxes[i] = 0;
+        }
+        trailSize = 0;
+        solutions = 0;
+    }
+
+    private boolean loadCell(int i, int value) {
+        cells[i] = value;
+        if (value == 0) return true;
+        if (value < 0 || value > SIZE) return false;
+        int bit = 1 << (value - 1);
+        if (((rows[ROW[i]] | columns[COLUMN[i]] | boxes[BOX[i]]) & bit) != 0) return false;
+        rows[ROW[i]] |= bit;
+        columns[COLUMN[i]] |= bit;
+        boxes[BOX[i]] |= bit;
+        return true;
+    }
+
+    private void run(int limit) {
+        long start = SudokuMetrics.start();
+        this.limit = limit;
+        search();
+        if (limit == 1) {
+            SudokuMetrics.stop(SudokuMetrics.SOLVE, start);
+            if (solutions == 0) SudokuMetrics.count(SudokuMetrics.UNSOLVABLE, 1);
+        } else {
+            SudokuMetrics.stop(SudokuMetrics.COUNT_SOLUTIONS, start);
+        }
+    }
+
+    private int candidates(int i) {
+        return ~(rows[ROW[i]] | columns[COLUMN[i]] | boxes[BOX[i]]) & ALL;
+    }
+
+    private void place(int i, int bit) {
+        cells[i] = Integer.numberOfTrailingZeros(bit) + 1;
+        rows[ROW[i]] |= bit;
+        columns[COLUMN[i]] |= bit;
+        boxes[BOX[i]] |= bit;
+        trail[trailSize++] = i;
+    }
+
+    private void undo(int mark) {
+        while (trailSize > mark) {
+            int i = trail[--trailSize];
+            int bit = ~(1 << (cells[i] - 1));
+            rows[ROW[i]] &= bit;
+            columns[COLUMN[i]] &= bit;
+            boxes[BOX[i]] &= bit;
+            cells[i] = 0;
+        }
+    }
+
+    /**
+     * Naked and hidden singles until nothing changes.
+     *
+     * @return - false on contradiction
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // Naked singles
+            for (int i = 0; i < CELLS; i++) {
+                if (cells[i] != 0) continue;
+                int c = candidates(i);
+                if (c == 0) return false;
+                if ((c & (c - 1)) == 0) {
+                    place(i, c);
+                    changed = true;
+                }
+            }
+            // Hidden singles
+            for (int u = 0; u < UNITS.length; u++) {
+                int[] unit = UNITS[u];
+                int once = 0, twice = 0, placed = 0;
+                for (int k = 0; k < SIZE; k++) {
+                    int i = unit[k];
+                    if (cells[i] != 0) {
+                        placed |= 1 << (cells[i] - 1);
+                    } else {
+                        int c = candidates(i);
+                        twice |= once & c;
+                        once |= c;
+                    }
+                }
+                if ((once | placed) != ALL) return false; // Digit has no place in unit
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    for (int k = 0; k < SIZE; k++) {
+                        int i = unit[k];
+                        if (cells[i] == 0 && (candidates(i) & bit) != 0) {
+                            place(i, bit);
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private void search() {
+        int mark = trailSize;
+        if (!propagate()) {
+            undo(mark);
+            return;
+        }
+
+        // Minimum remaining values
+        int best = -1, bestCount = SIZE + 1;
+        for (int i = 0; i < CELLS; i++) {
+            if (cells[i] != 0) continue;
+            int count = Integer.bitCount(candidates(i));
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+                if (count == 2) break;
+            }
+        }
+
+        if (best < 0) {
+            // Solved
+            if (solutions == 0) System.arraycopy(cells, 0, solution, 0, CELLS);
+            solutions++;
+            undo(mark);
+            return;
+        }
+
+        int c = candidates(best);
+        while (c != 0 && solutions < limit) {
+            int bit = c & -c;
+            c ^= bit;
+            int branch = trailSize;
+            place(best, bit);
+            search();
+            undo(branch);
+        }
+        undo(mark);
+    }
+}
@@ -0,0 +1,60 @@
+package org.lunapark.dev.sudokulight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/*
+ * Ids are shared between players, an id must decode to the same puzzle in every version.
+ */
+public class PuzzleIdTest {
+
+    @Test
+    public void idsWithoutSymmetryKeepTheirEncoding() {
+        // Written before symmetry was encoded
+        assertEquals("2PG28T5CY4TQKFF", PuzzleId.encode(0x0123456789ABCDEFL, 45, true));
+        assertEquals("1ZZZZZZZZZZZZZZ", PuzzleId.encode(-1L, 127, false));
+        assertEquals("00000000000001A", PuzzleId.encode(42L, 0, false));
+
+        PuzzleId id = PuzzleId.decode("2PG28T5CY4TQKFF");
+        assertEquals(new PuzzleId(0x0123456789ABCDEFL, 45, true), id);
+        assertEquals(Sudoku.SYMMETRY_NONE, id.symmetry);
+    }
+
+    @Test
+    public void roundTripsEveryMode() {
+        for (int symmetry = Sudoku.SYMMETRY_NONE; symmetry <= Sudoku.SYMMETRY_DIAGONAL; symmetry++) {
+            PuzzleId id = new PuzzleId(-7L, 58, true, symmetry);
+            assertEquals(id, PuzzleId.decode(id.toString().toLowerCase()));
+        }
+    }
+
+    @Test
+    public void decodesToTheSamePuzzle() {
+        PuzzleId id = PuzzleId.decode(PuzzleId.encode(2015L, 50, true, Sudoku.SYMMETRY_ROTATIONAL));
+        int[][] expected = copy(id.generate(new Sudoku(SudokuGrid.SIZE)));
+
+        // Instance used before with another mode
+        Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSymmetry(Sudoku.SYMMETRY_MIRROR);
+        sudoku.generateSudoku(1L, 30);
+        int[][] puzzle = id.generate(sudoku);
+        for (int i = 0; i < SudokuGrid.SIZE; i++) {
+            assertArrayEquals(expected[i], puzzle[i]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownSymmetry() {
+        PuzzleId.decode("G00000000000000");
+    }
+
+    private static int[][] copy(int[][] grid) {
+        int[][] result = new int[grid.length][];
+        for (int i = 0; i < grid.length; i++) {
+            result[i] = grid[i].clone();
+        }
+        return result;
+    }
+}
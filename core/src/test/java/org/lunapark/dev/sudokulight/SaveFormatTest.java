@@ -0,0 +1,109 @@
+package org.lunapark.dev.sudokulight;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * Saves of every version must load, bytes are built by hand as older versions wrote them.
+ */
+public class SaveFormatTest {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+
+    @Test
+    public void loadsVersion1() {
+        int[][] grid = puzzle();
+        byte[] data = new byte[55];
+        data[0] = 1;
+        data[1] = 40;
+        data[2] = 5;
+        for (int i = 0; i < CELLS; i++) {
+            int value = grid[i / SIZE][i % SIZE];
+            if (value != 0) data[3 + i / 8] |= 1 << (i % 8);
+            data[14 + i / 2] |= value << (i % 2 == 0 ? 4 : 0);
+        }
+
+        SaveFormat save = new SaveFormat();
+        save.journal.record(0, 0, 1); // Left from an earlier game
+        assertTrue(save.decode(data, data.length));
+        assertEquals(40, save.level);
+        assertEquals(5, save.value);
+        for (int i = 0; i < SIZE; i++) {
+            assertArrayEquals(grid[i], save.grid[i]);
+            for (int j = 0; j < SIZE; j++) {
+                assertEquals(grid[i][j] != 0, save.givens[i][j]);
+            }
+        }
+        assertFalse(save.journal.canUndo());
+        assertFalse(save.journal.canRedo());
+    }
+
+    @Test
+    public void roundTripsVersion2WithWrappedJournal() {
+        SaveFormat save = new SaveFormat();
+        save.level = 52;
+        save.value = 9;
+        int[][] grid = puzzle();
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                save.grid[i][j] = grid[i][j];
+                save.givens[i][j] = grid[i][j] != 0;
+            }
+        }
+        // More moves than the ring holds, the oldest ones are dropped
+        int moves = MoveJournal.CAPACITY + 100;
+        for (int i = 0; i < moves; i++) {
+            save.journal.record(i % CELLS, i % 10, (i + 1) % 10);
+        }
+        save.journal.undo();
+        save.journal.undo();
+
+        byte[] data = new byte[SaveFormat.LENGTH];
+        int length = save.encode(data);
+        assertEquals(SaveFormat.LENGTH, length);
+        assertEquals(SaveFormat.VERSION, data[0]);
+
+        SaveFormat loaded = new SaveFormat();
+        assertTrue(loaded.decode(data, length));
+        assertEquals(52, loaded.level);
+        assertEquals(9, loaded.value);
+        for (int i = 0; i < SIZE; i++) {
+            assertArrayEquals(save.grid[i], loaded.grid[i]);
+            assertArrayEquals(save.givens[i], loaded.givens[i]);
+        }
+
+        // Same redo tail and the same history back to the oldest kept move
+        assertEquals(save.journal.redo(), loaded.journal.redo());
+        assertEquals(save.journal.redo(), loaded.journal.redo());
+        assertFalse(loaded.journal.canRedo());
+        int undone = 0;
+        while (save.journal.canUndo()) {
+            assertEquals(save.journal.undo(), loaded.journal.undo());
+            undone++;
+        }
+        assertFalse(loaded.journal.canUndo());
+        assertEquals(MoveJournal.CAPACITY, undone);
+        assertEquals(MoveJournal.pack((moves - MoveJournal.CAPACITY) % CELLS,
+                (moves - MoveJournal.CAPACITY) % 10, (moves - MoveJournal.CAPACITY + 1) % 10),
+                save.journal.redo());
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        byte[] data = new byte[SaveFormat.LENGTH];
+        SaveFormat save = new SaveFormat();
+        int length = save.encode(data);
+        data[0] = SaveFormat.VERSION + 1;
+        assertFalse(save.decode(data, length));
+    }
+
+    private static int[][] puzzle() {
+        Sudoku sudoku = new Sudoku(SIZE);
+        return sudoku.generateSudoku(7, 40);
+    }
+}
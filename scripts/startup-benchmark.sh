@@ -0,0 +1,43 @@
+#!/bin/sh
+#
+# Cold start time of MainActivity on a device or emulator, to compare releases.
+# Every run kills the app (am start -S) and waits for the first frame (-W);
+# TotalTime is launch to first frame as reported by the activity manager.
+# Sections of StartupTrace are visible when a Perfetto or systrace capture
+# runs alongside, e.g. "MainActivity.onCreate" and "loadSudoku".
+#
+# Usage: scripts/startup-benchmark.sh [runs] [apk]
+# With an apk it is installed first. ANDROID_SERIAL selects the device.
+
+set -e
+
+RUNS=${1:-20}
+APK=$2
+PACKAGE=org.lunapark.dev.sudokulight
+ACTIVITY=$PACKAGE/.MainActivity
+
+if [ -n "$APK" ]; then
+    adb install -r "$APK" > /dev/null
+fi
+
+# First launch creates the save, later runs draw the saved board like a returning player
+adb shell am start -W -S -n $ACTIVITY > /dev/null
+sleep 2
+
+TIMES=$(mktemp)
+trap 'rm -f "$TIMES"' EXIT
+
+i=0
+while [ $i -lt "$RUNS" ]; do
+    adb shell am start -W -S -n $ACTIVITY | tr -d '\r' | awk '/^TotalTime:/ { print $2 }' >> "$TIMES"
+    sleep 1
+    i=$((i + 1))
+done
+
+sort -n "$TIMES" | awk -v runs="$RUNS" '
+    { t[NR] = $1; sum += $1 }
+    END {
+        if (NR == 0) { print "No TotalTime reported, is the device connected?"; exit 1 }
+        median = NR % 2 ? t[(NR + 1) / 2] : (t[NR / 2] + t[NR / 2 + 1]) / 2
+        printf "%d of %d runs, ms: min %d, median %.1f, mean %.1f, max %d\n", NR, runs, t[1], median, sum / NR, t[NR]
+    }'
@@ -0,0 +1,63 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * BatchSolver against SudokuSolver one by one on the same generated puzzles,
+ * scores are per puzzle.
+ */
+@State(Scope.Thread)
+public class BatchSolverBenchmark {
+
+    private static final int COUNT = 1024;
+
+    @Param({"30", "50", "60"})
+    public int level;
+
+    private SudokuGrid[] puzzles;
+    private SudokuGrid[] grids;
+    private boolean[] solved;
+    private BatchSolver batchSolver;
+    private SudokuSolver solver;
+
+    @Setup
+    public void setup() {
+        Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSeed(1);
+        puzzles = new SudokuGrid[COUNT];
+        grids = new SudokuGrid[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            puzzles[i] = new SudokuGrid();
+            puzzles[i].copyFrom(sudoku.generate(level));
+            grids[i] = new SudokuGrid();
+        }
+        solved = new boolean[COUNT];
+        batchSolver = new BatchSolver();
+        solver = new SudokuSolver();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int batch() {
+        for (int i = 0; i < COUNT; i++) {
+            grids[i].copyFrom(puzzles[i]);
+        }
+        return batchSolver.solve(grids, COUNT, solved);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int scalar() {
+        int total = 0;
+        for (int i = 0; i < COUNT; i++) {
+            grids[i].copyFrom(puzzles[i]);
+            if (solver.solve(grids[i])) total++;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,66 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+
+/*
+ * BatchValidator against Sudoku.checkSolution on the same submissions,
+ * scores are per submission.
+ */
+@State(Scope.Thread)
+public class BatchValidatorBenchmark {
+
+    private static final int COUNT = 1024;
+
+    private ByteBuffer solutions, puzzles;
+    private byte[] results;
+    private int[][][] arrays;
+    private Sudoku sudoku;
+
+    @Setup
+    public void setup() {
+        sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSeed(1);
+        SudokuSolver solver = new SudokuSolver();
+        solutions = ByteBuffer.allocateDirect(COUNT * BatchValidator.GRID);
+        puzzles = ByteBuffer.allocateDirect(COUNT * BatchValidator.GRID);
+        results = new byte[COUNT];
+        arrays = new int[COUNT][][];
+        SudokuGrid solution = new SudokuGrid();
+        for (int n = 0; n < COUNT; n++) {
+            SudokuGrid puzzle = sudoku.generate(40);
+            solution.copyFrom(puzzle);
+            solver.solve(solution);
+            if (n % 8 == 0) {
+                // Every 8th submission breaks in the last row
+                solution.set(80, solution.get(79));
+            }
+            puzzles.put(puzzle.cells());
+            solutions.put(solution.cells());
+            arrays[n] = solution.toArray();
+        }
+        puzzles.flip();
+        solutions.flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int batch() {
+        return BatchValidator.validate(solutions, puzzles, results);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int checkSolution() {
+        int valid = 0;
+        for (int[][] array : arrays) {
+            if (sudoku.checkSolution(array)) valid++;
+        }
+        return valid;
+    }
+}
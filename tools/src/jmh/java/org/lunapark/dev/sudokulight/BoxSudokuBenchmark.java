@@ -0,0 +1,53 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * BoxSudoku generation and solving for 4x4, 9x9, 16x16 and 25x25 grids.
+ */
+@State(Scope.Thread)
+public class BoxSudokuBenchmark {
+
+    @Param({"2", "3", "4", "5"})
+    public int box;
+
+    // Hidden cells as percent of the grid
+    @Param({"50"})
+    public int percent;
+
+    private BoxSudoku sudoku;
+    private int hidden;
+    private int[] puzzle;
+    private int[] grid;
+
+    @Setup
+    public void setup() {
+        sudoku = new BoxSudoku(box);
+        sudoku.setSeed(box);
+        int cells = sudoku.getSize() * sudoku.getSize();
+        hidden = cells * percent / 100;
+        puzzle = sudoku.generate(hidden).clone();
+        grid = new int[cells];
+    }
+
+    @Benchmark
+    public int[] generate() {
+        return sudoku.generate(hidden);
+    }
+
+    @Benchmark
+    public int[] solve() {
+        System.arraycopy(puzzle, 0, grid, 0, grid.length);
+        sudoku.solve(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return sudoku.countSolutions(puzzle, 2);
+    }
+}
@@ -0,0 +1,56 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Canonical form of generated puzzles and the off-heap dedup index, scores are per puzzle.
+ */
+@State(Scope.Thread)
+public class CanonicalizerBenchmark {
+
+    private static final int COUNT = 256;
+
+    private SudokuGrid[] puzzles;
+    private long[] fingerprints;
+    private Canonicalizer canonicalizer;
+    private OffHeapLongSet set;
+
+    @Setup
+    public void setup() {
+        Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSeed(1);
+        canonicalizer = new Canonicalizer();
+        puzzles = new SudokuGrid[COUNT];
+        fingerprints = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            puzzles[i] = new SudokuGrid();
+            puzzles[i].copyFrom(sudoku.generate(50));
+            fingerprints[i] = canonicalizer.fingerprint(puzzles[i]);
+        }
+        set = new OffHeapLongSet(COUNT);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long fingerprint() {
+        long x = 0;
+        for (SudokuGrid puzzle : puzzles) {
+            x ^= canonicalizer.fingerprint(puzzle);
+        }
+        return x;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int add() {
+        int added = 0;
+        for (long fingerprint : fingerprints) {
+            if (set.add(fingerprint)) added++;
+        }
+        return added;
+    }
+}
@@ -0,0 +1,42 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Sudoku.checkSolution on valid and invalid grids.
+ */
+@State(Scope.Thread)
+public class CheckSolutionBenchmark {
+
+    @Param({"true", "false"})
+    public boolean valid;
+
+    private Sudoku sudoku;
+    private SudokuGrid grid;
+    private int[][] array;
+
+    @Setup
+    public void setup() {
+        sudoku = new Sudoku(SudokuGrid.SIZE);
+        grid = Puzzles.grid(Puzzles.SOLVED);
+        if (!valid) {
+            // Last cell repeats its left neighbour: row 8, column 8 and box 8 all fail, found at i = 8
+            grid.set(80, grid.get(79));
+        }
+        array = grid.toArray();
+    }
+
+    @Benchmark
+    public boolean checkArray() {
+        return sudoku.checkSolution(array);
+    }
+
+    @Benchmark
+    public boolean checkGrid() {
+        return sudoku.checkSolution(grid);
+    }
+}
@@ -0,0 +1,38 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Sudoku.generateSudoku at several levels, with and without uniqueness check.
+ */
+@State(Scope.Thread)
+public class GeneratorBenchmark {
+
+    @Param({"10", "30", "45", "60", "75"})
+    public int level;
+
+    @Param({"false", "true"})
+    public boolean unique;
+
+    private Sudoku sudoku;
+
+    @Setup
+    public void setup() {
+        sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setUnique(unique);
+    }
+
+    @Benchmark
+    public int[][] generateSudoku() {
+        return sudoku.generateSudoku(level);
+    }
+
+    @Benchmark
+    public SudokuGrid generate() {
+        return sudoku.generate(level);
+    }
+}
@@ -0,0 +1,48 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * SudokuGrader on hard puzzles and on fresh unique puzzles, and rated generation.
+ */
+@State(Scope.Thread)
+public class GraderBenchmark {
+
+    @Param({"0", "1", "2", "3", "4"})
+    public int puzzle;
+
+    private SudokuGrader grader;
+    private SudokuGrid hard;
+    private SudokuGrid generated;
+    private Sudoku sudoku;
+
+    @Setup
+    public void setup() {
+        grader = new SudokuGrader();
+        hard = Puzzles.grid(Puzzles.HARD[puzzle]);
+        sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setUnique(true);
+        sudoku.setSeed(puzzle);
+        generated = new SudokuGrid();
+        generated.copyFrom(sudoku.generate(55));
+    }
+
+    @Benchmark
+    public int gradeHard() {
+        return grader.grade(hard);
+    }
+
+    @Benchmark
+    public int gradeGenerated() {
+        return grader.grade(generated);
+    }
+
+    @Benchmark
+    public SudokuGrid generateRated() {
+        return sudoku.generate(55, 50, 300, 20);
+    }
+}
@@ -0,0 +1,99 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/*
+ * Symmetry group permutation used by the generator, in-place swaps of rows and
+ * columns are the baseline it replaced.
+ */
+@State(Scope.Thread)
+public class PermutationBenchmark {
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int BOX = 3;
+
+    private SudokuGrid grid;
+    private SudokuGrid permuted;
+    private SudokuPermutation permutation;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        grid = Puzzles.grid(Puzzles.SOLVED);
+        permuted = new SudokuGrid();
+        permutation = new SudokuPermutation();
+        random = new Random(1);
+    }
+
+    @Benchmark
+    public SudokuGrid permute() {
+        permutation.randomize(random);
+        permutation.apply(grid, permuted);
+        return permuted;
+    }
+
+    @Benchmark
+    public SudokuGrid swapRows() {
+        swapRows(grid.cells(), 0, 2);
+        return grid;
+    }
+
+    @Benchmark
+    public SudokuGrid swapColumns() {
+        swapColumns(grid.cells(), 0, 2);
+        return grid;
+    }
+
+    @Benchmark
+    public SudokuGrid swapBands() {
+        swapBands(grid.cells(), 0, 1);
+        return grid;
+    }
+
+    @Benchmark
+    public SudokuGrid swapStacks() {
+        swapStacks(grid.cells(), 0, 1);
+        return grid;
+    }
+
+    private static void swapRows(byte[] cells, int a, int b) {
+        a *= SIZE;
+        b *= SIZE;
+        for (int i = 0; i < SIZE; i++) {
+            byte t = cells[a + i];
+            cells[a + i] = cells[b + i];
+            cells[b + i] = t;
+        }
+    }
+
+    private static void swapColumns(byte[] cells, int a, int b) {
+        for (int i = 0; i < SudokuGrid.CELLS; i += SIZE) {
+            byte t = cells[i + a];
+            cells[i + a] = cells[i + b];
+            cells[i + b] = t;
+        }
+    }
+
+    /**
+     * Swap horizontal 3-row areas
+     */
+    private static void swapBands(byte[] cells, int a, int b) {
+        for (int i = 0; i < BOX; i++) {
+            swapRows(cells, a * BOX + i, b * BOX + i);
+        }
+    }
+
+    /**
+     * Swap vertical 3-column areas
+     */
+    private static void swapStacks(byte[] cells, int a, int b) {
+        for (int i = 0; i < BOX; i++) {
+            swapColumns(cells, a * BOX + i, b * BOX + i);
+        }
+    }
+}
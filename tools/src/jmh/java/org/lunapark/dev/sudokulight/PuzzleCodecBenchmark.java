@@ -0,0 +1,72 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/*
+ * PuzzleCodec on in-memory text, scores are per line.
+ */
+@State(Scope.Thread)
+public class PuzzleCodecBenchmark {
+
+    private static final int COUNT = 4096;
+
+    private byte[] text;
+    private SudokuGrid[] puzzles;
+    private PuzzleCodec codec;
+    private ByteArrayOutputStream out;
+    private long checksum;
+
+    private final PuzzleCodec.Handler handler = (line, puzzle, solution, rating) -> {
+        checksum += puzzle.get(0) + rating;
+        return true;
+    };
+
+    @Setup
+    public void setup() throws IOException {
+        Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSeed(1);
+        SudokuSolver solver = new SudokuSolver();
+        puzzles = new SudokuGrid[COUNT];
+        out = new ByteArrayOutputStream(COUNT * 200);
+        PuzzleCodec.Writer writer = new PuzzleCodec.Writer(out, '.');
+        SudokuGrid solution = new SudokuGrid();
+        for (int i = 0; i < COUNT; i++) {
+            puzzles[i] = new SudokuGrid();
+            puzzles[i].copyFrom(sudoku.generate(50));
+            solution.copyFrom(puzzles[i]);
+            solver.solve(solution);
+            writer.write(puzzles[i], solution, i);
+        }
+        writer.flush();
+        text = out.toByteArray();
+        codec = new PuzzleCodec();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public long read() throws IOException {
+        checksum = 0;
+        codec.read(new ByteArrayInputStream(text), handler);
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int write() throws IOException {
+        out.reset();
+        PuzzleCodec.Writer writer = new PuzzleCodec.Writer(out, '.');
+        for (int i = 0; i < COUNT; i++) {
+            writer.write(puzzles[i], null, i);
+        }
+        writer.flush();
+        return out.size();
+    }
+}
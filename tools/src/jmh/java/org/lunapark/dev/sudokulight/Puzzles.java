@@ -0,0 +1,30 @@
+package org.lunapark.dev.sudokulight;
+
+/*
+ * Fixed inputs for benchmarks, "." is an empty cell.
+ */
+final class Puzzles {
+
+    static final String[] HARD = {
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+            "1.......2.9.4...5...6...7...5.9.3.......7.......85..4.7.....6...3...9.8...2.....1",
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3.."
+    };
+
+    static final String SOLVED =
+            "417369825632158947958724316825437169791586432346912758289643571573291684164875293";
+
+    private Puzzles() {
+    }
+
+    static SudokuGrid grid(String line) {
+        SudokuGrid grid = new SudokuGrid();
+        for (int i = 0; i < SudokuGrid.CELLS; i++) {
+            char c = line.charAt(i);
+            grid.set(i, c == '.' ? 0 : c - '0');
+        }
+        return grid;
+    }
+}
@@ -0,0 +1,40 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * SudokuSolver on hard puzzles: full solve and uniqueness check.
+ */
+@State(Scope.Thread)
+public class SolverBenchmark {
+
+    @Param({"0", "1", "2", "3", "4"})
+    public int puzzle;
+
+    private SudokuSolver solver;
+    private SudokuGrid source;
+    private SudokuGrid grid;
+
+    @Setup
+    public void setup() {
+        solver = new SudokuSolver();
+        source = Puzzles.grid(Puzzles.HARD[puzzle]);
+        grid = new SudokuGrid();
+    }
+
+    @Benchmark
+    public SudokuGrid solve() {
+        grid.copyFrom(source);
+        solver.solve(grid);
+        return grid;
+    }
+
+    @Benchmark
+    public int countSolutions() {
+        return solver.countSolutions(source, 2);
+    }
+}
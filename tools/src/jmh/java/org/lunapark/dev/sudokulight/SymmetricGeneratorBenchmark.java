@@ -0,0 +1,36 @@
+package org.lunapark.dev.sudokulight;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/*
+ * Unique generation with symmetric hidden cells, see Sudoku.setSymmetry.
+ * Solution counts per call are bounded by Sudoku.DEFAULT_SOLVER_BUDGET.
+ */
+@State(Scope.Thread)
+public class SymmetricGeneratorBenchmark {
+
+    @Param({"1", "2", "3"})
+    public int symmetry;
+
+    @Param({"50", "54", "56"})
+    public int level;
+
+    private Sudoku sudoku;
+
+    @Setup
+    public void setup() {
+        sudoku = new Sudoku(SudokuGrid.SIZE);
+        sudoku.setSeed(1);
+        sudoku.setUnique(true);
+        sudoku.setSymmetry(symmetry);
+    }
+
+    @Benchmark
+    public SudokuGrid generate() {
+        return sudoku.generate(level);
+    }
+}
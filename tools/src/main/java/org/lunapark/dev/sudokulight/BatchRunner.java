@@ -0,0 +1,297 @@
+package org.lunapark.dev.sudokulight;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Headless batch tool: generate -> check -> grade -> write, every stage has its own
+ * worker pool and a bounded queue in front of it, so a slow stage holds the stages
+ * before it instead of filling the heap. Give the slowest stage the most threads.
+ *
+ * Output is PuzzleCodec text, one "puzzle solution score" line per puzzle. Puzzle i is
+ * generated from seed and i, but lines are written in completion order.
+ *
+ * Usage: BatchRunner <file> <count> <first level> <last level> [seed]
+ * -Dbatch.generators, -Dbatch.checkers, -Dbatch.graders - worker threads per stage
+ * -Dbatch.queue - capacity of every queue, -Dbatch.report - seconds between reports, 0 for none
+ * -Dsudoku.metrics=true - engine metrics are printed at the end
+ */
+public class BatchRunner {
+
+    public static final int DEFAULT_QUEUE = 1024;
+
+    private static final Job END = new Job(); // One per worker of the next stage
+
+    /**
+     * Puzzle on its way through the stages
+     */
+    private static final class Job {
+        final SudokuGrid puzzle = new SudokuGrid();
+        final SudokuGrid solution = new SudokuGrid();
+        int score;
+    }
+
+    /**
+     * Work of a stage on one job, false drops the job
+     */
+    private interface Step {
+        boolean process(Job job) throws IOException;
+    }
+
+    private static final class Stage {
+        final String name;
+        final int workers;
+        final BlockingQueue<Job> in; // null for the source
+        final ExecutorService pool;
+        final AtomicInteger running;
+        final AtomicLong done = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        long reported; // Done at the last report
+
+        Stage(String name, int workers, int queue) {
+            this.name = name;
+            this.workers = workers;
+            this.in = queue > 0 ? new ArrayBlockingQueue<>(queue) : null;
+            this.pool = Executors.newFixedThreadPool(workers);
+            this.running = new AtomicInteger(workers);
+        }
+    }
+
+    private final int generators, checkers, graders, queue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private Stage[] stages;
+
+    /**
+     * @param queue - capacity of the queue in front of every stage
+     */
+    public BatchRunner(int generators, int checkers, int graders, int queue) {
+        if (generators < 1 || checkers < 1 || graders < 1 || queue < 1) {
+            throw new IllegalArgumentException("Threads and queue must be positive");
+        }
+        this.generators = generators;
+        this.checkers = checkers;
+        this.graders = graders;
+        this.queue = queue;
+    }
+
+    /**
+     * Produce count puzzles, blocks until the file is written
+     *
+     * @param levels - puzzle i gets level levels[i % levels.length]
+     * @param report - receives a line per stage every reportSeconds, null for none
+     * @return - quantity of written puzzles, less than count if checks dropped some
+     */
+    public long run(File file, final long count, final int[] levels, final long seed,
+                    PrintStream report, int reportSeconds) throws IOException {
+        if (levels.length == 0) throw new IllegalArgumentException("No levels");
+        final Stage generate = new Stage("generate", generators, 0);
+        final Stage check = new Stage("check", checkers, queue);
+        final Stage grade = new Stage("grade", graders, queue);
+        final Stage write = new Stage("write", 1, queue);
+        stages = new Stage[]{generate, check, grade, write};
+
+        final AtomicLong next = new AtomicLong();
+        final ThreadLocal<Sudoku> sudokus = ThreadLocal.withInitial(() -> {
+            Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+            sudoku.setUnique(true);
+            return sudoku;
+        });
+        Runnable source = () -> {
+            try {
+                Sudoku sudoku = sudokus.get();
+                for (long i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                    Job job = new Job();
+                    sudoku.setSeed(seed ^ (i * 0x9E3779B97F4A7C15L));
+                    job.puzzle.copyFrom(sudoku.generate(levels[(int) (i % levels.length)]));
+                    generate.done.incrementAndGet();
+                    check.in.put(job);
+                }
+                finish(generate, check);
+            } catch (InterruptedException e) {
+                // Stopped by a failure of another stage
+            } catch (RuntimeException | Error e) {
+                fail(e);
+            }
+        };
+        for (int i = 0; i < generators; i++) {
+            generate.pool.execute(source);
+        }
+        generate.pool.shutdown();
+
+        // Independent uniqueness check, the solution is written with the puzzle
+        final ThreadLocal<SudokuSolver> solvers = ThreadLocal.withInitial(SudokuSolver::new);
+        start(check, grade, job -> {
+            SudokuSolver solver = solvers.get();
+            if (solver.countSolutions(job.puzzle, 2) != 1) return false;
+            job.solution.copyFrom(job.puzzle);
+            return solver.solve(job.solution);
+        });
+
+        final ThreadLocal<SudokuGrader> sudokuGraders = ThreadLocal.withInitial(SudokuGrader::new);
+        start(grade, write, job -> {
+            job.score = sudokuGraders.get().grade(job.puzzle);
+            return job.score >= 0;
+        });
+
+        File temp = new File(file.getPath() + ".tmp");
+        boolean written = false;
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            final PuzzleCodec.Writer writer = new PuzzleCodec.Writer(channel, '.');
+            start(write, null, job -> {
+                writer.write(job.puzzle, job.solution, job.score);
+                return true;
+            });
+
+            long last = System.nanoTime();
+            long period = TimeUnit.SECONDS.toNanos(Math.max(reportSeconds, 1));
+            while (!write.pool.awaitTermination(100, TimeUnit.MILLISECONDS)) {
+                long now = System.nanoTime();
+                if (report != null && reportSeconds > 0 && now - last >= period) {
+                    report(report, now - last);
+                    last = now;
+                }
+            }
+            Throwable error = failure.get();
+            if (error instanceof IOException) throw (IOException) error;
+            if (error instanceof RuntimeException) throw (RuntimeException) error;
+            if (error instanceof Error) throw (Error) error;
+            writer.flush();
+            channel.force(false);
+            written = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } finally {
+            for (Stage stage : stages) {
+                stage.pool.shutdownNow();
+            }
+            if (!written) temp.delete(); // Partial output of a failed run
+        }
+        if (!temp.renameTo(file)) throw new IOException("Can't replace " + file);
+        return write.done.get();
+    }
+
+    /**
+     * @return - puzzles dropped by the check and grade stages
+     */
+    public long getDropped() {
+        long dropped = 0;
+        for (Stage stage : stages) {
+            dropped += stage.dropped.get();
+        }
+        return dropped;
+    }
+
+    /**
+     * Run workers of the stage, jobs passed by the step go to the next stage
+     */
+    private void start(final Stage stage, final Stage next, final Step step) {
+        Runnable worker = () -> {
+            try {
+                while (true) {
+                    Job job = stage.in.take();
+                    if (job == END) break;
+                    if (step.process(job)) {
+                        stage.done.incrementAndGet();
+                        if (next != null) next.in.put(job);
+                    } else {
+                        stage.dropped.incrementAndGet();
+                    }
+                }
+                finish(stage, next);
+            } catch (InterruptedException e) {
+                // Stopped by a failure of another stage
+            } catch (IOException | RuntimeException | Error e) {
+                fail(e);
+            }
+        };
+        for (int i = 0; i < stage.workers; i++) {
+            stage.pool.execute(worker);
+        }
+        stage.pool.shutdown(); // Pool ends with its workers
+    }
+
+    /**
+     * Last worker of the stage tells every worker of the next stage to end
+     */
+    private void finish(Stage stage, Stage next) throws InterruptedException {
+        if (stage.running.decrementAndGet() > 0 || next == null) return;
+        for (int i = 0; i < next.workers; i++) {
+            next.in.put(END);
+        }
+    }
+
+    private void fail(Throwable error) {
+        failure.compareAndSet(null, error);
+        for (Stage stage : stages) {
+            stage.pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Throughput of every stage since the last report and depth of its queue
+     */
+    private void report(PrintStream out, long nanos) {
+        StringBuilder line = new StringBuilder();
+        for (Stage stage : stages) {
+            long done = stage.done.get();
+            if (line.length() > 0) line.append(" | ");
+            line.append(stage.name).append(' ').append(done)
+                    .append(" (").append((done - stage.reported) * 1000000000L / nanos).append("/s");
+            if (stage.in != null) line.append(", queue ").append(stage.in.size());
+            line.append(')');
+            stage.reported = done;
+        }
+        out.println(line);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) usage();
+        File file = new File(args[0]);
+        long count = Long.parseLong(args[1]);
+        int first = Integer.parseInt(args[2]);
+        int last = Integer.parseInt(args[3]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        if (count < 0 || first < 0 || last < first || last > SudokuGrid.CELLS) usage();
+
+        int[] levels = new int[last - first + 1];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = first + i;
+        }
+
+        // Uniqueness during generation is the most work, the check only repeats it once
+        int cores = Runtime.getRuntime().availableProcessors();
+        int generators = Integer.getInteger("batch.generators", Math.max(1, cores - cores / 4));
+        int checkers = Integer.getInteger("batch.checkers", Math.max(1, cores / 8));
+        int graders = Integer.getInteger("batch.graders", Math.max(1, cores / 8));
+        int queue = Integer.getInteger("batch.queue", DEFAULT_QUEUE);
+        int reportSeconds = Integer.getInteger("batch.report", 5);
+
+        SudokuMetrics.setEnabled(Boolean.getBoolean("sudoku.metrics"));
+        BatchRunner runner = new BatchRunner(generators, checkers, graders, queue);
+        long start = System.nanoTime();
+        long written = runner.run(file, count, levels, seed, System.out, reportSeconds);
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println(written + " puzzles, " + runner.getDropped() + " dropped, "
+                + file.length() + " bytes, " + millis + " ms");
+        if (SudokuMetrics.isEnabled()) System.out.print(SudokuMetrics.snapshot());
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchRunner <file> <count> <first level> <last level> [seed]");
+        System.err.println("count >= 0, 0 <= first level <= last level <= " + SudokuGrid.CELLS);
+        System.exit(1);
+    }
+}
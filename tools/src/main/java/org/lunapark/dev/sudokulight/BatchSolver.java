@@ -0,0 +1,225 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.Arrays;
+
+/*
+ * Solves many puzzles at once for throughput workloads. Candidates are bit-sliced:
+ * bit p of a long is puzzle p of a batch of 64, so one long operation updates every
+ * puzzle of the batch. Naked and hidden singles run for the whole batch in lockstep,
+ * puzzles that stall without a contradiction are finished one by one by SudokuSolver
+ * from their propagated grid. Not thread safe, use one instance per thread.
+ */
+public class BatchSolver {
+
+    public static final int LANES = 64; // Puzzles per batch
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int CELLS = SudokuGrid.CELLS;
+    private static final int[][] UNITS = SudokuSolver.UNITS;
+    private static final int[] UNITS_OF = new int[CELLS]; // Cell -> bits of its 3 units
+
+    static {
+        for (int i = 0; i < CELLS; i++) {
+            UNITS_OF[i] = 1 << SudokuSolver.ROW[i] | 1 << (SIZE + SudokuSolver.COLUMN[i])
+                    | 1 << (2 * SIZE + SudokuSolver.BOX[i]);
+        }
+    }
+
+    private final long[] candidates = new long[CELLS * SIZE]; // cell * 9 + digit - 1 -> lanes
+    private final long[] givens = new long[CELLS * SIZE]; // Same index, lanes with the given digit
+    private final long[] singles = new long[CELLS]; // Lanes with one candidate left in the cell
+    private final boolean[] touched = new boolean[CELLS]; // Candidates changed in the round
+    private final long[] unitSingles = new long[SIZE]; // Singles of the cells of the current unit
+    private final SudokuSolver solver = new SudokuSolver();
+    private final SudokuGrid stalled = new SudokuGrid();
+    private long fallbacks;
+
+    /**
+     * Solve grids in place, grids without solution are not modified
+     *
+     * @param count  - quantity of grids from index 0
+     * @param solved - true for every grid with a solution, same index
+     * @return - quantity of solved grids
+     */
+    public int solve(SudokuGrid[] grids, int count, boolean[] solved) {
+        int total = 0;
+        for (int from = 0; from < count; from += LANES) {
+            total += batch(grids, from, Math.min(count - from, LANES), solved);
+        }
+        return total;
+    }
+
+    /**
+     * @return - puzzles passed to SudokuSolver since the instance was created
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    private int batch(SudokuGrid[] grids, int from, int n, boolean[] solved) {
+        long lanes = n == LANES ? -1L : (1L << n) - 1;
+        Arrays.fill(givens, 0);
+        Arrays.fill(singles, 0);
+        long dead = 0; // Lanes without solution
+        for (int p = 0; p < n; p++) {
+            byte[] cells = grids[from + p].cells();
+            long bit = 1L << p;
+            for (int i = 0; i < CELLS; i++) {
+                int value = cells[i];
+                if (value == 0) continue;
+                if (value < 0 || value > SIZE) {
+                    dead |= bit;
+                    continue;
+                }
+                givens[i * SIZE + value - 1] |= bit;
+                singles[i] |= bit;
+            }
+        }
+        // Given cells keep their digit, empty cells get all digits
+        for (int i = 0; i < CELLS; i++) {
+            long empty = lanes & ~singles[i];
+            for (int d = 0; d < SIZE; d++) {
+                candidates[i * SIZE + d] = empty | givens[i * SIZE + d];
+            }
+        }
+        dead |= propagate(lanes);
+
+        long complete = lanes & ~dead;
+        for (int i = 0; i < CELLS; i++) {
+            complete &= singles[i];
+        }
+        // Transposed write back: lanes of every cell and digit
+        for (int i = 0; i < CELLS; i++) {
+            for (int d = 0; d < SIZE; d++) {
+                long bits = candidates[i * SIZE + d] & complete;
+                while (bits != 0) {
+                    grids[from + Long.numberOfTrailingZeros(bits)].cells()[i] = (byte) (d + 1);
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        int total = Long.bitCount(complete);
+        for (int p = 0; p < n; p++) {
+            long bit = 1L << p;
+            boolean ok = (complete & bit) != 0;
+            if (!ok && (dead & bit) == 0) {
+                ok = fallback(p, grids[from + p]);
+                if (ok) total++;
+            }
+            solved[from + p] = ok;
+        }
+        return total;
+    }
+
+    /**
+     * Singles until no live lane changes, candidates only shrink so it always ends.
+     * A round revisits only cells and units changed by the round before.
+     *
+     * @return - lanes with a contradiction
+     */
+    private long propagate(long lanes) {
+        long dead = 0;
+        long changed = lanes;
+        int units = (1 << UNITS.length) - 1; // Units to visit in the round
+        Arrays.fill(touched, true);
+        while ((changed & ~dead) != 0) {
+            changed = 0;
+            int next = 0;
+            for (int i = 0; i < CELLS; i++) {
+                if (!touched[i]) continue;
+                touched[i] = false;
+                int base = i * SIZE;
+                long once = 0, twice = 0;
+                for (int d = 0; d < SIZE; d++) {
+                    long c = candidates[base + d];
+                    twice |= once & c;
+                    once |= c;
+                }
+                dead |= lanes & ~once; // No candidate left
+                singles[i] = once & ~twice;
+            }
+            for (int u = 0; u < UNITS.length; u++) {
+                if ((units & (1 << u)) == 0) continue;
+                int[] unit = UNITS[u];
+                for (int k = 0; k < SIZE; k++) {
+                    unitSingles[k] = singles[unit[k]];
+                }
+                for (int d = 0; d < SIZE; d++) {
+                    // Naked singles: digit placed in a cell leaves the other cells of the unit
+                    long placed = 0, twice = 0;
+                    for (int k = 0; k < SIZE; k++) {
+                        long bits = candidates[unit[k] * SIZE + d] & unitSingles[k];
+                        twice |= placed & bits;
+                        placed |= bits;
+                    }
+                    dead |= twice; // Digit placed twice
+
+                    // Hidden singles: digit with one place left in the unit, counted after removal
+                    long once = 0;
+                    twice = 0;
+                    for (int k = 0; k < SIZE; k++) {
+                        int cell = unit[k];
+                        long c = candidates[cell * SIZE + d];
+                        long removed = c & placed & ~unitSingles[k];
+                        if (removed != 0) {
+                            c ^= removed;
+                            candidates[cell * SIZE + d] = c;
+                            changed |= removed;
+                            next |= touch(cell);
+                        }
+                        twice |= once & c;
+                        once |= c;
+                    }
+                    dead |= lanes & ~once; // No place for the digit
+                    long hidden = once & ~twice;
+                    if (hidden == 0) continue;
+                    for (int k = 0; k < SIZE; k++) {
+                        int cell = unit[k];
+                        long place = hidden & candidates[cell * SIZE + d] & ~unitSingles[k];
+                        if (place == 0) continue;
+                        for (int e = 0; e < SIZE; e++) {
+                            if (e != d) candidates[cell * SIZE + e] &= ~place;
+                        }
+                        unitSingles[k] |= place;
+                        singles[cell] |= place;
+                        changed |= place;
+                        next |= touch(cell);
+                    }
+                }
+            }
+            units = next;
+        }
+        return dead;
+    }
+
+    /**
+     * Mark the cell for the next round
+     *
+     * @return - bits of its row, column and box
+     */
+    private int touch(int cell) {
+        touched[cell] = true;
+        return UNITS_OF[cell];
+    }
+
+    /**
+     * Backtracking for a stalled lane, from the cells the batch has already solved
+     */
+    private boolean fallback(int p, SudokuGrid grid) {
+        fallbacks++;
+        byte[] cells = stalled.cells();
+        for (int i = 0; i < CELLS; i++) {
+            int value = 0;
+            if ((singles[i] >>> p & 1) != 0) {
+                for (int d = 0; d < SIZE; d++) {
+                    if ((candidates[i * SIZE + d] >>> p & 1) != 0) value = d + 1;
+                }
+            }
+            cells[i] = (byte) value;
+        }
+        if (!solver.solve(stalled)) return false;
+        grid.copyFrom(stalled);
+        return true;
+    }
+}
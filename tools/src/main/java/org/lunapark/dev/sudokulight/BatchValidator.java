@@ -0,0 +1,120 @@
+package org.lunapark.dev.sudokulight;
+
+import java.nio.ByteBuffer;
+
+/*
+ * Server side check of submitted solutions. Grids are packed one after another,
+ * 81 bytes each, byte row * 9 + column is the cell value, 0 is empty.
+ * Stateless: every call uses its own scratch, any number of threads may share it.
+ */
+public final class BatchValidator {
+
+    public static final int GRID = SudokuGrid.CELLS; // Bytes per grid
+
+    // Result codes
+    public static final byte VALID = 0;
+    public static final byte INCOMPLETE = 1; // Empty cell or value out of 1..9
+    public static final byte GIVENS = 2; // Solution does not keep a given of its puzzle
+    public static final byte CONFLICT = 3; // Digit repeats in a row, column or box
+
+    private static final int SIZE = SudokuGrid.SIZE;
+    private static final int ALL = ((1 << SIZE) - 1) << 1; // Bits 1..9
+    private static final int CHUNK = 256; // Grids per bulk copy of a ByteBuffer
+
+    private BatchValidator() {
+    }
+
+    /**
+     * Validate grids from..to-1, buffer positions are not changed.
+     * Grids are bulk copied in chunks, single byte reads of a ByteBuffer are slow.
+     *
+     * @param solutions - submitted grids from the buffer position
+     * @param puzzles   - puzzle of every solution from the buffer position, same index
+     * @param results   - result code per grid, results[i - from]
+     * @return - quantity of valid solutions
+     */
+    public static int validate(ByteBuffer solutions, ByteBuffer puzzles, int from, int to, byte[] results) {
+        ByteBuffer s = solutions.duplicate();
+        ByteBuffer p = puzzles.duplicate();
+        int count = Math.min(to - from, CHUNK);
+        byte[] solutionChunk = new byte[count * GRID];
+        byte[] puzzleChunk = new byte[count * GRID];
+        int[] masks = new int[3 * SIZE];
+        int valid = 0;
+        for (int i = from; i < to; i += CHUNK) {
+            int n = Math.min(to - i, CHUNK);
+            s.position(solutions.position() + i * GRID);
+            p.position(puzzles.position() + i * GRID);
+            s.get(solutionChunk, 0, n * GRID);
+            p.get(puzzleChunk, 0, n * GRID);
+            for (int k = 0; k < n; k++) {
+                byte result = check(solutionChunk, k * GRID, puzzleChunk, k * GRID, masks);
+                results[i - from + k] = result;
+                if (result == VALID) valid++;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Validate all grids remaining in solutions
+     */
+    public static int validate(ByteBuffer solutions, ByteBuffer puzzles, byte[] results) {
+        return validate(solutions, puzzles, 0, solutions.remaining() / GRID, results);
+    }
+
+    /**
+     * Validate count grids packed in arrays from offset 0
+     *
+     * @return - quantity of valid solutions
+     */
+    public static int validate(byte[] solutions, byte[] puzzles, int count, byte[] results) {
+        int[] masks = new int[3 * SIZE];
+        int valid = 0;
+        for (int i = 0; i < count; i++) {
+            byte result = check(solutions, i * GRID, puzzles, i * GRID, masks);
+            results[i] = result;
+            if (result == VALID) valid++;
+        }
+        return valid;
+    }
+
+    /**
+     * Validate single grid at offsets of the arrays
+     */
+    public static byte check(byte[] solution, int solutionOffset, byte[] puzzle, int puzzleOffset) {
+        return check(solution, solutionOffset, puzzle, puzzleOffset, new int[3 * SIZE]);
+    }
+
+    /**
+     * One pass over the cells: range and givens are checked per cell,
+     * unit masks are ORed and compared at the end
+     */
+    private static byte check(byte[] solution, int s, byte[] puzzle, int p, int[] masks) {
+        for (int i = 0; i < masks.length; i++) {
+            masks[i] = 0;
+        }
+        int mismatch = 0;
+        for (int row = 0; row < SIZE; row++) {
+            int box = 2 * SIZE + (row / 3) * 3;
+            int rowMask = 0;
+            for (int column = 0; column < SIZE; column++) {
+                int value = solution[s++];
+                if (value < 1 || value > SIZE) return INCOMPLETE;
+                int given = puzzle[p++];
+                mismatch |= given * (given ^ value); // Branch free: given is 0 or equals value
+                int bit = 1 << value;
+                rowMask |= bit;
+                masks[SIZE + column] |= bit;
+                masks[box + column / 3] |= bit;
+            }
+            masks[row] = rowMask;
+        }
+        if (mismatch != 0) return GIVENS;
+        int all = ALL;
+        for (int mask : masks) {
+            all &= mask;
+        }
+        return all == ALL ? VALID : CONFLICT;
+    }
+}
@@ -0,0 +1,148 @@
+package org.lunapark.dev.sudokulight;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Generates many puzzles on all cores and streams them to a sink.
+ */
+public class BulkGenerator {
+
+    private static final int BATCH = 64; // Puzzles per leaf task
+    private static final int RETRIES = 16; // New puzzles per index while they are duplicates
+
+    /**
+     * Receives generated puzzles. Called concurrently from worker threads in no
+     * particular order; the grid is reused by the worker, copy it to keep it.
+     */
+    public interface Sink {
+        void accept(long index, int level, SudokuGrid puzzle);
+    }
+
+    private final ForkJoinPool pool;
+    private final boolean unique;
+    private final ThreadLocal<Sudoku> generators;
+    private final ThreadLocal<Canonicalizer> canonicalizers = ThreadLocal.withInitial(Canonicalizer::new);
+    private final AtomicLong duplicates = new AtomicLong();
+    private volatile OffHeapLongSet fingerprints;
+
+    /**
+     * @param parallelism - worker threads
+     * @param unique      - see Sudoku.setUnique
+     */
+    public BulkGenerator(int parallelism, final boolean unique) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.unique = unique;
+        this.generators = ThreadLocal.withInitial(() -> {
+            Sudoku sudoku = new Sudoku(SudokuGrid.SIZE);
+            sudoku.setUnique(unique);
+            return sudoku;
+        });
+    }
+
+    public BulkGenerator(boolean unique) {
+        this(Runtime.getRuntime().availableProcessors(), unique);
+    }
+
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Reject puzzles equal up to symmetry to any puzzle of the set, fingerprints of
+     * accepted puzzles are added to it. The set may be shared between generators and runs.
+     * Retries use the random stream of the following indices, so with dedup the output
+     * depends on thread scheduling and is no longer reproducible by the seed.
+     *
+     * @param fingerprints - null to disable dedup
+     */
+    public void setFingerprints(OffHeapLongSet fingerprints) {
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * @return - duplicates passed to the sink after all retries failed
+     */
+    public long getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Generate puzzles, blocks until all of them are passed to the sink.
+     *
+     * @param count      - quantity of puzzles
+     * @param levels     - puzzle with index i gets level levels[i % levels.length]
+     * @param masterSeed - the same seed gives the same puzzle for every index,
+     *                   regardless of parallelism and thread scheduling
+     * @param sink       - receiver of puzzles
+     */
+    public void generate(long count, int[] levels, long masterSeed, Sink sink) {
+        if (levels.length == 0) throw new IllegalArgumentException("No levels");
+        pool.invoke(new Task(0, count, new SplittableRandom(masterSeed), levels, sink));
+    }
+
+    public void generate(long count, int[] levels, Sink sink) {
+        generate(count, levels, System.nanoTime(), sink);
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Splits the index range in halves. The split tree depends only on the range,
+     * so every leaf gets the same random stream on every run.
+     */
+    private class Task extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long from, to;
+        private final SplittableRandom random;
+        private final int[] levels;
+        private final Sink sink;
+
+        Task(long from, long to, SplittableRandom random, int[] levels, Sink sink) {
+            this.from = from;
+            this.to = to;
+            this.random = random;
+            this.levels = levels;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH) {
+                Sudoku sudoku = generators.get();
+                OffHeapLongSet set = fingerprints;
+                for (long i = from; i < to; i++) {
+                    int level = levels[(int) (i % levels.length)];
+                    sudoku.setSeed(random.nextLong());
+                    SudokuGrid puzzle = sudoku.generate(level);
+                    if (set != null) puzzle = distinct(sudoku, puzzle, level, set);
+                    sink.accept(i, level, puzzle);
+                }
+            } else {
+                long middle = (from + to) >>> 1;
+                SplittableRandom right = random.split();
+                invokeAll(new Task(from, middle, random, levels, sink),
+                        new Task(middle, to, right, levels, sink));
+            }
+        }
+
+        private SudokuGrid distinct(Sudoku sudoku, SudokuGrid puzzle, int level, OffHeapLongSet set) {
+            Canonicalizer canonicalizer = canonicalizers.get();
+            for (int attempt = 0; !set.add(canonicalizer.fingerprint(puzzle)); attempt++) {
+                if (attempt == RETRIES) {
+                    duplicates.incrementAndGet();
+                    break;
+                }
+                sudoku.setSeed(random.nextLong());
+                puzzle = sudoku.generate(level);
+            }
+            return puzzle;
+        }
+    }
+}
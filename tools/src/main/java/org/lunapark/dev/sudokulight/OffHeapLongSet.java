@@ -0,0 +1,142 @@
+package org.lunapark.dev.sudokulight;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/*
+ * Set of long keys in direct memory, for fingerprints of hundreds of millions of puzzles
+ * without filling the heap. Open addressing with linear probing, the table is split in
+ * segments of at most 1 GB (direct buffers are int indexed) and at least 4 segments per
+ * thread when the table is large enough, every segment has its own lock so threads of
+ * a bulk generator rarely wait for each other.
+ * Memory is released when the set is garbage collected, keys can't be removed.
+ */
+public class OffHeapLongSet {
+
+    private static final int MAX_SEGMENT_BITS = 27; // 2^27 slots of 8 bytes
+    private static final int MIN_SEGMENT_BITS = 10; // Smaller segments fill unevenly
+    private static final int SEGMENTS_PER_THREAD = 4;
+    private static final double LOAD = 0.7; // Expected keys per slot for the capacity
+    private static final double MAX_LOAD = 0.9; // Beyond it the segment is full
+
+    private final ByteBuffer[] segments;
+    private final int[] sizes;
+    private final int segmentBits, segmentMask, limit;
+    private boolean zero; // Key 0 marks empty slots, it is kept aside
+
+    /**
+     * Set for as many threads as there are processors
+     *
+     * @param expected - quantity of keys, the table is sized for it at load 0.7
+     */
+    public OffHeapLongSet(long expected) {
+        this(expected, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param expected - quantity of keys, the table is sized for it at load 0.7
+     * @param threads  - threads adding keys at the same time
+     */
+    public OffHeapLongSet(long expected, int threads) {
+        if (expected < 1) expected = 1;
+        long slots = Long.highestOneBit((long) Math.ceil(expected / LOAD) - 1) << 1;
+        if (slots < 64) slots = 64;
+        int bits = Long.numberOfTrailingZeros(slots);
+        // Lock segments for the threads while segments stay large enough
+        int split = 32 - Integer.numberOfLeadingZeros(Math.max(threads * SEGMENTS_PER_THREAD, 1) - 1);
+        split = Math.max(0, Math.min(split, bits - MIN_SEGMENT_BITS));
+        segmentBits = Math.min(bits - split, MAX_SEGMENT_BITS);
+        int count = (int) (slots >>> segmentBits);
+        segments = new ByteBuffer[count];
+        sizes = new int[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = ByteBuffer.allocateDirect(8 << segmentBits).order(ByteOrder.nativeOrder());
+        }
+        segmentMask = (1 << segmentBits) - 1;
+        limit = (int) ((1L << segmentBits) * MAX_LOAD);
+    }
+
+    /**
+     * @return - true if the key was not in the set
+     * @throws IllegalStateException - segment of the key is full, the set was too small
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            synchronized (this) {
+                boolean added = !zero;
+                zero = true;
+                return added;
+            }
+        }
+        long hash = mix(key);
+        int s = (int) (hash >>> 32) & (segments.length - 1);
+        ByteBuffer segment = segments[s];
+        synchronized (segment) {
+            int slot = (int) hash & segmentMask;
+            while (true) {
+                long stored = segment.getLong(slot << 3);
+                if (stored == key) return false;
+                if (stored == 0) break;
+                slot = (slot + 1) & segmentMask;
+            }
+            if (sizes[s] >= limit) throw new IllegalStateException("Set is full: " + size() + " keys");
+            segment.putLong(slot << 3, key);
+            sizes[s]++;
+            return true;
+        }
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            synchronized (this) {
+                return zero;
+            }
+        }
+        long hash = mix(key);
+        ByteBuffer segment = segments[(int) (hash >>> 32) & (segments.length - 1)];
+        synchronized (segment) {
+            int slot = (int) hash & segmentMask;
+            while (true) {
+                long stored = segment.getLong(slot << 3);
+                if (stored == key) return true;
+                if (stored == 0) return false;
+                slot = (slot + 1) & segmentMask;
+            }
+        }
+    }
+
+    /**
+     * @return - quantity of keys, not exact while other threads add
+     */
+    public long size() {
+        long size;
+        synchronized (this) {
+            size = zero ? 1 : 0;
+        }
+        for (int s = 0; s < segments.length; s++) {
+            synchronized (segments[s]) {
+                size += sizes[s];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return - slots of the table, bytes of direct memory are 8 times more
+     */
+    public long capacity() {
+        return (long) segments.length << segmentBits;
+    }
+
+    /**
+     * Finalizer of MurmurHash3, the segment comes from the high bits and the slot from the low
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,116 @@
+package org.lunapark.dev.sudokulight;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * Offline tool: builds a PuzzleBank file of unique, rated puzzles.
+ *
+ * Usage: PuzzleBankBuilder <file> <puzzles per level> <first level> <last level> [seed]
+ * With -Dsudoku.metrics=true engine metrics are printed at the end.
+ * With -Dsudoku.dedup=true puzzles equal up to symmetry are rejected (output is not reproducible).
+ */
+public class PuzzleBankBuilder {
+
+    private final BulkGenerator generator;
+    private final ThreadLocal<SudokuGrader> graders = ThreadLocal.withInitial(SudokuGrader::new);
+    private final ThreadLocal<ByteBuffer> records = ThreadLocal.withInitial(() -> ByteBuffer.allocate(PuzzleBank.RECORD));
+
+    public PuzzleBankBuilder(BulkGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Generate count puzzles for each level and write them as a bank
+     */
+    public void build(File file, int[] levels, int count, long seed) throws IOException {
+        long offset = PuzzleBank.HEADER + (long) levels.length * PuzzleBank.INDEX_ENTRY;
+        ByteBuffer header = ByteBuffer.allocate((int) offset);
+        header.putInt(PuzzleBank.MAGIC);
+        header.putShort((short) PuzzleBank.VERSION);
+        header.putShort((short) PuzzleBank.RECORD);
+        header.putInt(levels.length);
+        long[] offsets = new long[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            offsets[i] = offset;
+            header.putInt(levels[i]);
+            header.putInt(count);
+            header.putLong(offset);
+            offset += (long) count * PuzzleBank.RECORD;
+        }
+        header.flip();
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            raf.setLength(offset);
+            FileChannel channel = raf.getChannel();
+            channel.write(header, 0);
+            for (int i = 0; i < levels.length; i++) {
+                writeLevel(channel, levels[i], count, offsets[i], seed + i);
+            }
+            channel.force(true);
+        }
+        if (!temp.renameTo(file)) throw new IOException("Can't replace " + file);
+    }
+
+    private void writeLevel(final FileChannel channel, int level, int count, final long offset, long seed)
+            throws IOException {
+        try {
+            generator.generate(count, new int[]{level}, seed, (index, lvl, puzzle) -> {
+                SudokuGrader grader = graders.get();
+                int score = grader.grade(puzzle);
+                ByteBuffer record = records.get();
+                record.clear();
+                PuzzleBank.encode(puzzle, score, grader.getHardest(), record);
+                try {
+                    // Positional write, workers never share a record
+                    long position = offset + index * PuzzleBank.RECORD;
+                    while (record.hasRemaining()) {
+                        position += channel.write(record, position);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: PuzzleBankBuilder <file> <puzzles per level> <first level> <last level> [seed]");
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        int count = Integer.parseInt(args[1]);
+        int first = Integer.parseInt(args[2]);
+        int last = Integer.parseInt(args[3]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+        int[] levels = new int[last - first + 1];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = first + i;
+        }
+
+        SudokuMetrics.setEnabled(Boolean.getBoolean("sudoku.metrics"));
+        BulkGenerator generator = new BulkGenerator(true);
+        if (Boolean.getBoolean("sudoku.dedup")) {
+            generator.setFingerprints(new OffHeapLongSet(levels.length * (long) count));
+        }
+        long start = System.nanoTime();
+        try {
+            new PuzzleBankBuilder(generator).build(file, levels, count, seed);
+        } finally {
+            generator.shutdown();
+        }
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println(levels.length * (long) count + " puzzles, " + file.length() + " bytes, " + millis + " ms");
+        if (generator.getDuplicates() > 0) System.out.println(generator.getDuplicates() + " duplicates kept");
+        if (SudokuMetrics.isEnabled()) System.out.print(SudokuMetrics.snapshot());
+    }
+}